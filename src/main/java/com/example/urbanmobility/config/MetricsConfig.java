@@ -0,0 +1,17 @@
+package com.example.urbanmobility.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Times the service methods annotated with @Timed; repository calls are timed by Spring Boot
+// as spring.data.repository.invocations. Percentiles and histograms are set in application.properties.
+@Configuration(proxyBeanMethods = false)
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.urbanmobility.config;
+
+import com.example.urbanmobility.controller.ReactiveBookingHandler;
+import com.example.urbanmobility.repository.ReactiveBookingRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.ServletRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.repository.support.R2dbcRepositoryFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.server.reactive.ServletHttpHandlerAdapter;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+// Serves the WebFlux booking routes under /reactive next to the MVC API. They run on
+// Tomcat through a non-blocking servlet, and request threads are not held while R2DBC works.
+// Enabled with app.reactive.enabled=true.
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "app.reactive.enabled", havingValue = "true")
+public class ReactiveBookingConfig implements DisposableBean {
+    public static final String PATH = "/reactive";
+
+    private ConnectionPool connectionPool;
+
+    // The pool is deliberately not a bean: Boot backs off the JDBC DataSource as soon as
+    // an R2DBC ConnectionFactory bean exists, and the JPA side needs it
+    @Bean
+    public ReactiveBookingRepository reactiveBookingRepository(@Value("${app.reactive.r2dbc.url}") String url,
+                                                               @Value("${app.reactive.r2dbc.username}") String username,
+                                                               @Value("${app.reactive.r2dbc.password}") String password,
+                                                               @Value("${app.reactive.r2dbc.max-pool-size}") int maxPoolSize) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build();
+        connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .maxSize(maxPoolSize)
+                .build());
+        return new R2dbcRepositoryFactory(new R2dbcEntityTemplate(connectionPool))
+                .getRepository(ReactiveBookingRepository.class);
+    }
+
+    @Override
+    public void destroy() {
+        if (connectionPool != null) {
+            connectionPool.dispose();
+        }
+    }
+
+    @Bean
+    public ReactiveBookingHandler reactiveBookingHandler(ReactiveBookingRepository reactiveBookingRepository,
+                                                         ObjectMapper objectMapper) {
+        return new ReactiveBookingHandler(reactiveBookingRepository, objectMapper);
+    }
+
+    @Bean
+    public RouterFunction<ServerResponse> reactiveBookingRoutes(ReactiveBookingHandler handler) {
+        return RouterFunctions.route()
+                .GET("/api/bookings/stream", handler::streamBookings)
+                .GET("/api/bookings/user/{username}", handler::getBookingsByUsername)
+                .GET("/api/bookings/{bookingId}", handler::getBookingById)
+                .GET("/api/bookings", handler::getBookings)
+                .build();
+    }
+
+    @Bean
+    public ServletRegistrationBean<ServletHttpHandlerAdapter> reactiveBookingServlet(
+            RouterFunction<ServerResponse> reactiveBookingRoutes, ObjectMapper objectMapper) {
+        // Same JSON settings as the MVC endpoints
+        HandlerStrategies strategies = HandlerStrategies.builder()
+                .codecs(codecs -> {
+                    codecs.defaultCodecs().jackson2JsonEncoder(
+                            new Jackson2JsonEncoder(objectMapper, MediaType.APPLICATION_JSON, MediaType.APPLICATION_NDJSON));
+                    codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+                })
+                .build();
+        ServletHttpHandlerAdapter servlet =
+                new ServletHttpHandlerAdapter(RouterFunctions.toHttpHandler(reactiveBookingRoutes, strategies));
+        ServletRegistrationBean<ServletHttpHandlerAdapter> registration =
+                new ServletRegistrationBean<>(servlet, PATH + "/*");
+        registration.setName("reactiveBookingServlet");
+        registration.setAsyncSupported(true);
+        registration.setLoadOnStartup(1);
+        return registration;
+    }
+}
@@ -1,56 +1,121 @@
 package com.example.urbanmobility.controller;
 
+import com.example.urbanmobility.dto.AccountImportReport;
+import com.example.urbanmobility.dto.AccountPatch;
+import com.example.urbanmobility.dto.AccountSummary;
 import com.example.urbanmobility.exception.ResourceNotFoundException;
 import com.example.urbanmobility.model.Account;
+import com.example.urbanmobility.model.Booking;
+import com.example.urbanmobility.service.AccountImportService;
 import com.example.urbanmobility.service.AccountService;
+import com.example.urbanmobility.service.BookingService;
+import com.example.urbanmobility.service.IdempotencyStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.micrometer.common.util.StringUtils;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/account")
 
 public class AccountController {
     private final AccountService accountService;
+    private final AccountImportService accountImportService;
+    private final BookingService bookingService;
+    private final ObjectMapper objectMapper;
+    private final IdempotencyStore idempotencyStore;
 
-    public AccountController(AccountService accountService) {
+    public AccountController(AccountService accountService, AccountImportService accountImportService,
+                             BookingService bookingService, ObjectMapper objectMapper, IdempotencyStore idempotencyStore) {
         this.accountService = accountService;
+        this.accountImportService = accountImportService;
+        this.bookingService = bookingService;
+        this.objectMapper = objectMapper;
+        this.idempotencyStore = idempotencyStore;
     }
 
     @GetMapping("/{accountId}")
-    public Optional<Account> getAccountById(@PathVariable("accountId") long accountId) {
-        return accountService.getAccountById(accountId);
+    public ResponseEntity<Account> getAccountById(@PathVariable("accountId") long accountId) {
+        return accountService.getAccountById(accountId)
+                .map(account -> ResponseEntity.ok().eTag(ETags.of(account.getVersion())).body(account))
+                .orElseGet(() -> ResponseEntity.ok().build());
     }
     @GetMapping
-    public ResponseEntity<List<Account>> getAllAccounts() {
-        List<Account> accounts = accountService.getAllAccounts();
-        if (accounts == null)
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
-        return ResponseEntity.status(HttpStatus.OK).body(accounts);
+    public ResponseEntity<? extends List<?>> getAllAccounts(@RequestParam(required = false) List<String> fields,
+                                                           @RequestParam(defaultValue = "0") long after,
+                                                           @RequestParam(defaultValue = "" + AccountService.DEFAULT_PAGE_SIZE) int limit) {
+        if (fields == null || fields.isEmpty()) {
+            List<AccountSummary> accounts = accountService.getAccountSummaries(after, limit);
+            return PageLinks.page(accounts, limit, AccountSummary::id);
+        }
+        List<Map<String, Object>> accounts = accountService.getAccountFields(fields, after, limit);
+        return PageLinks.page(accounts, limit, account -> ((Number) account.get("id")).longValue());
+    }
+
+    @GetMapping("/{id}/bookings")
+    public ResponseEntity<List<Booking>> getAccountBookings(@PathVariable("id") long accountId,
+                                                            @RequestParam(defaultValue = "0") long after,
+                                                            @RequestParam(defaultValue = "" + BookingService.DEFAULT_PAGE_SIZE) int limit) {
+        List<Booking> bookings = bookingService.getAccountBookings(accountId, after, limit);
+        return PageLinks.page(bookings, limit, Booking::getBookingId);
+    }
+
+    // Count-only mode for clients that need the size of the history, not its rows
+    @GetMapping(value = "/{id}/bookings", params = "count=true")
+    public ResponseEntity<Map<String, Long>> countAccountBookings(@PathVariable("id") long accountId) {
+        return ResponseEntity.ok(Map.of("count", bookingService.countAccountBookings(accountId)));
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllAccounts(@RequestParam(required = false) List<String> fields) {
+        StreamingResponseBody body = outputStream -> {
+            NdjsonWriter writer = new NdjsonWriter(objectMapper, outputStream);
+            accountService.streamAccounts(fields, writer::write);
+            writer.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
     @PostMapping
-    public ResponseEntity<Account> createAccount(@RequestBody Account account) {
+    public ResponseEntity<Account> createAccount(@RequestBody Account account,
+                                                 @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
         if (account == null || StringUtils.isBlank(account.getUsername())) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
 
-        accountService.createAccount(account);
-        return new ResponseEntity<>(account, HttpStatus.CREATED);
+        Account savedAccount = idempotencyStore.execute("account", idempotencyKey, account,
+                () -> accountService.createAccount(account));
+        return new ResponseEntity<>(savedAccount, HttpStatus.CREATED);
+    }
+
+    // One account per line; the body is read as a stream, never buffered whole
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<AccountImportReport> importAccounts(InputStream accounts) throws IOException {
+        return ResponseEntity.ok(accountImportService.importAccounts(accounts));
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<Account> updateAccount(@PathVariable("id") long accountId, @RequestBody Account updatedAccount) {
-        accountService.updateAccount(accountId, updatedAccount);
-        return new ResponseEntity<>(updatedAccount, HttpStatus.OK);
+    public ResponseEntity<Account> updateAccount(@PathVariable("id") long accountId, @RequestBody Account updatedAccount,
+                                                 @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Account savedAccount = accountService.updateAccount(accountId, updatedAccount, ETags.expectedVersion(ifMatch));
+        return ResponseEntity.ok().eTag(ETags.of(savedAccount.getVersion())).body(savedAccount);
+    }
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<Account> patchAccount(@PathVariable("id") long accountId, @RequestBody AccountPatch patch,
+                                                @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Account savedAccount = accountService.patchAccount(accountId, patch, ETags.expectedVersion(ifMatch));
+        return ResponseEntity.ok().eTag(ETags.of(savedAccount.getVersion())).body(savedAccount);
     }
     @DeleteMapping("/{id}")
     public ResponseEntity<String> deleteAccount(@PathVariable("id") long id) {
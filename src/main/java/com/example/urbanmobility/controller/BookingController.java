@@ -1,15 +1,24 @@
 package com.example.urbanmobility.controller;
 
+import com.example.urbanmobility.dto.BookingPatch;
 import com.example.urbanmobility.exception.ResourceNotFoundException;
 import com.example.urbanmobility.model.Booking;
+import com.example.urbanmobility.service.BookingIngestQueue;
 import com.example.urbanmobility.service.BookingService;
+import com.example.urbanmobility.service.IdempotencyStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/bookings")
@@ -17,36 +26,93 @@ public class BookingController {
     @Autowired
     private BookingService bookingService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
     public BookingController(BookingService bookingService) {
         this.bookingService = bookingService;
     }
 
     @PostMapping
-    public ResponseEntity<Booking> createBooking(@RequestBody Booking booking) {
-        Booking savedBooking = bookingService.createBooking(booking);
+    public ResponseEntity<Booking> createBooking(@RequestBody Booking booking,
+                                                 @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        if (bookingService.ingestsInBackground()) {
+            BookingIngestQueue.Ticket ticket = idempotencyStore.execute("booking", idempotencyKey, booking,
+                    () -> bookingService.ingestBooking(booking));
+            // Accepted with its id; the row is committed by the next batch
+            return ResponseEntity.accepted()
+                    .location(ServletUriComponentsBuilder.fromCurrentRequestUri()
+                            .path("/{bookingId}")
+                            .buildAndExpand(ticket.booking().getBookingId())
+                            .toUri())
+                    .body(ticket.booking());
+        }
+        Booking savedBooking = idempotencyStore.execute("booking", idempotencyKey, booking,
+                () -> bookingService.createBooking(booking));
         return new ResponseEntity<>(savedBooking, HttpStatus.CREATED);
     }
 
+    // Answers only once the booking is committed, also when ingestion runs in the background
+    @PostMapping(params = "durable=true")
+    public CompletableFuture<ResponseEntity<Booking>> createBookingDurably(@RequestBody Booking booking,
+                                                                          @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        if (!bookingService.ingestsInBackground()) {
+            return CompletableFuture.completedFuture(createBooking(booking, idempotencyKey));
+        }
+        BookingIngestQueue.Ticket ticket = idempotencyStore.execute("booking", idempotencyKey, booking,
+                () -> bookingService.ingestBooking(booking));
+        return ticket.committed().thenApply(savedBooking -> new ResponseEntity<>(savedBooking, HttpStatus.CREATED));
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<List<Booking>> createBookings(@RequestBody List<Booking> bookings) {
+        List<Booking> savedBookings = bookingService.createBookings(bookings);
+        return new ResponseEntity<>(savedBookings, HttpStatus.CREATED);
+    }
+
     @GetMapping("/{bookingId}")
     public ResponseEntity<Booking> getBookingById(@PathVariable Long bookingId) {
         return bookingService.getBookingById(bookingId)
-                .map(booking -> new ResponseEntity<>(booking, HttpStatus.OK))
+                .map(booking -> ResponseEntity.ok().eTag(ETags.of(booking.getVersion())).body(booking))
                 .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
     }
     @GetMapping
-    public List<Booking> getAllBookings() {
-        return bookingService.getAllBookings();
+    public ResponseEntity<List<Booking>> getAllBookings(@RequestParam(defaultValue = "0") long after,
+                                                        @RequestParam(defaultValue = "" + BookingService.DEFAULT_PAGE_SIZE) int limit) {
+        List<Booking> bookings = bookingService.getBookings(after, limit);
+        return PageLinks.page(bookings, limit, Booking::getBookingId);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllBookings() {
+        StreamingResponseBody body = outputStream -> {
+            NdjsonWriter writer = new NdjsonWriter(objectMapper, outputStream);
+            bookingService.streamBookings(writer::write);
+            writer.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
     @PutMapping("/{bookingId}")
-    public ResponseEntity<Booking> updateBooking(@PathVariable Long bookingId, @RequestBody Booking booking) {
+    public ResponseEntity<Booking> updateBooking(@PathVariable Long bookingId, @RequestBody Booking booking,
+                                                 @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            Booking updatedBooking = bookingService.updateBooking(bookingId, booking);
-            return new ResponseEntity<>(updatedBooking, HttpStatus.OK);
+            Booking updatedBooking = bookingService.updateBooking(bookingId, booking, ETags.expectedVersion(ifMatch));
+            return ResponseEntity.ok().eTag(ETags.of(updatedBooking.getVersion())).body(updatedBooking);
         } catch (ResourceNotFoundException e) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
     }
+    // RFC 7396 merge patch; plain JSON is accepted for clients that cannot set the media type
+    @PatchMapping(value = "/{bookingId}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<Booking> patchBooking(@PathVariable Long bookingId, @RequestBody BookingPatch patch,
+                                                @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Booking patchedBooking = bookingService.patchBooking(bookingId, patch, ETags.expectedVersion(ifMatch));
+        return ResponseEntity.ok().eTag(ETags.of(patchedBooking.getVersion())).body(patchedBooking);
+    }
     @DeleteMapping("/{bookingId}")
     public ResponseEntity<Void> deleteBooking(@PathVariable Long bookingId) {
         try {
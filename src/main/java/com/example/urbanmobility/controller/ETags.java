@@ -0,0 +1,51 @@
+package com.example.urbanmobility.controller;
+
+import com.example.urbanmobility.exception.PreconditionFailedException;
+
+import java.util.List;
+
+// Maps entity versions to ETags and back from If-Match, and list pages to ETags over their content.
+// All tags are weak: one tag covers the JSON, CBOR and Smile encodings of the same state, and
+// responses carry Vary: Accept so caches keep the encodings apart.
+final class ETags {
+    private ETags() {
+    }
+
+    static String of(Long version) {
+        return "W/\"" + version + "\"";
+    }
+
+    // 64-bit FNV-1a over the items' text, which holds every field the body shows; unlike hashCode it is
+    // the same on every instance and after a restart. Tomcat would not compress it if it were strong.
+    static String ofPage(List<?> items) {
+        long hash = 0xcbf29ce484222325L;
+        for (Object item : items) {
+            String text = String.valueOf(item);
+            for (int i = 0; i < text.length(); i++) {
+                hash = (hash ^ text.charAt(i)) * 0x100000001b3L;
+            }
+            hash = (hash ^ '\n') * 0x100000001b3L;
+        }
+        return "W/\"" + Long.toHexString(hash) + "\"";
+    }
+
+    // No header or "*" means an unconditional write; malformed tags can never match. The version names
+    // the stored state whatever the encoding, so the weak tags handed out here are accepted as preconditions.
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        if (tag.length() < 3 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+            throw new PreconditionFailedException("If-Match " + ifMatch + " does not match the current version");
+        }
+        try {
+            return Long.parseLong(tag.substring(1, tag.length() - 1));
+        } catch (NumberFormatException e) {
+            throw new PreconditionFailedException("If-Match " + ifMatch + " does not match the current version");
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.urbanmobility.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+// Builds keyset-paginated list responses with an RFC 8288 "next" link and a content ETag;
+// a matching If-None-Match gets a 304 without the page being serialized
+final class PageLinks {
+    private PageLinks() {
+    }
+
+    static <T> ResponseEntity<List<T>> page(List<T> items, int limit, ToLongFunction<T> idOf) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(ETags.ofPage(items));
+        // A full page means there may be more rows after the last id
+        if (!items.isEmpty() && items.size() == limit) {
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("after", idOf.applyAsLong(items.get(items.size() - 1)))
+                    .replaceQueryParam("limit", limit)
+                    .toUriString();
+            response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return response.body(items);
+    }
+}
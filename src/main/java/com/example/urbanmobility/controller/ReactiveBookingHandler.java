@@ -0,0 +1,111 @@
+package com.example.urbanmobility.controller;
+
+import com.example.urbanmobility.dto.BookingView;
+import com.example.urbanmobility.repository.ReactiveBookingRepository;
+import com.example.urbanmobility.service.BookingService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+// WebFlux handlers for the read side of the booking API, served under /reactive
+public class ReactiveBookingHandler {
+    static final int STREAM_BATCH_SIZE = 256;
+
+    private final ReactiveBookingRepository bookingRepository;
+    private final ObjectWriter bookingWriter;
+
+    public ReactiveBookingHandler(ReactiveBookingRepository bookingRepository, ObjectMapper objectMapper) {
+        this.bookingRepository = bookingRepository;
+        this.bookingWriter = objectMapper.writerFor(BookingView.class);
+    }
+
+    public Mono<ServerResponse> getBookingById(ServerRequest request) {
+        long bookingId;
+        try {
+            bookingId = Long.parseLong(request.pathVariable("bookingId"));
+        } catch (NumberFormatException e) {
+            return badRequest("Booking id must be a number");
+        }
+        return bookingRepository.findById(bookingId)
+                .flatMap(booking -> ServerResponse.ok().bodyValue(booking))
+                .switchIfEmpty(ServerResponse.notFound().build());
+    }
+
+    public Mono<ServerResponse> getBookings(ServerRequest request) {
+        long after;
+        int limit;
+        try {
+            after = request.queryParam("after").map(Long::parseLong).orElse(0L);
+            limit = request.queryParam("limit").map(Integer::parseInt).orElse(BookingService.DEFAULT_PAGE_SIZE);
+        } catch (NumberFormatException e) {
+            return badRequest("after and limit must be numbers");
+        }
+        if (limit <= 0 || limit > BookingService.MAX_PAGE_SIZE) {
+            return badRequest("Limit must be between 1 and " + BookingService.MAX_PAGE_SIZE);
+        }
+        return bookingRepository.findPageAfter(after, limit)
+                .collectList()
+                .flatMap(bookings -> page(request, bookings, limit));
+    }
+
+    public Mono<ServerResponse> getBookingsByUsername(ServerRequest request) {
+        return ServerResponse.ok().body(bookingRepository.findByUsername(request.pathVariable("username")),
+                BookingView.class);
+    }
+
+    // Rows are requested from the cursor a batch at a time, so a slow client slows the query
+    // instead of buffering the table. The NDJSON encoder would flush after every row, so each
+    // batch is encoded into one buffer here instead.
+    public Mono<ServerResponse> streamBookings(ServerRequest request) {
+        return ServerResponse.ok().contentType(MediaType.APPLICATION_NDJSON)
+                .body(BodyInserters.fromDataBuffers(bookingRepository.streamAllOrderByBookingId()
+                        .buffer(STREAM_BATCH_SIZE)
+                        .map(this::encodeLines)));
+    }
+
+    private DataBuffer encodeLines(List<BookingView> bookings) {
+        ByteArrayOutputStream lines = new ByteArrayOutputStream(bookings.size() * 96);
+        try {
+            for (BookingView booking : bookings) {
+                lines.write(bookingWriter.writeValueAsBytes(booking));
+                lines.write('\n');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return DefaultDataBufferFactory.sharedInstance.wrap(lines.toByteArray());
+    }
+
+    // Malformed input is the client's error, answered with 400 like the MVC endpoints rather than
+    // surfacing as a 500
+    private static Mono<ServerResponse> badRequest(String message) {
+        return ServerResponse.status(HttpStatus.BAD_REQUEST).bodyValue(message);
+    }
+
+    // Same "next" link as PageLinks, built from the reactive request
+    private Mono<ServerResponse> page(ServerRequest request, List<BookingView> bookings, int limit) {
+        ServerResponse.BodyBuilder response = ServerResponse.ok();
+        if (!bookings.isEmpty() && bookings.size() == limit) {
+            String next = UriComponentsBuilder.fromUri(request.uri())
+                    .replaceQueryParam("after", bookings.get(bookings.size() - 1).bookingId())
+                    .replaceQueryParam("limit", limit)
+                    .toUriString();
+            response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return response.bodyValue(bookings);
+    }
+}
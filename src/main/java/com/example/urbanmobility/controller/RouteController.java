@@ -0,0 +1,55 @@
+package com.example.urbanmobility.controller;
+
+import com.example.urbanmobility.dto.RouteStats;
+import com.example.urbanmobility.exception.ResourceNotFoundException;
+import com.example.urbanmobility.model.Route;
+import com.example.urbanmobility.service.RouteCapacityService;
+import com.example.urbanmobility.service.RouteDemandService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/routes")
+public class RouteController {
+    private final RouteCapacityService routeCapacityService;
+    private final RouteDemandService routeDemandService;
+
+    public RouteController(RouteCapacityService routeCapacityService, RouteDemandService routeDemandService) {
+        this.routeCapacityService = routeCapacityService;
+        this.routeDemandService = routeDemandService;
+    }
+
+    // Creates the route, or changes the capacity of an existing one
+    @PutMapping("/{routeId}")
+    public ResponseEntity<Route> saveRoute(@PathVariable int routeId, @RequestBody Route route) {
+        route.setRouteId(routeId);
+        return new ResponseEntity<>(routeCapacityService.saveRoute(route), HttpStatus.OK);
+    }
+
+    @GetMapping("/{routeId}")
+    public ResponseEntity<Route> getRoute(@PathVariable int routeId) {
+        return routeCapacityService.getRoute(routeId)
+                .map(ResponseEntity::ok)
+                .orElseThrow(() -> new ResourceNotFoundException("Route with id " + routeId + " not found!"));
+    }
+
+    // Demand figures are answered from memory, never from the booking table
+    @GetMapping("/stats")
+    public List<RouteStats> getRouteStats() {
+        return routeDemandService.getStats();
+    }
+
+    @GetMapping("/{routeId}/stats")
+    public RouteStats getRouteStats(@PathVariable int routeId) {
+        return routeDemandService.getStats(routeId);
+    }
+
+    @GetMapping("/top-k")
+    public List<RouteStats> getTopRoutes(@RequestParam(defaultValue = "10") int k,
+                                         @RequestParam(defaultValue = "RECENT") RouteDemandService.Ranking by) {
+        return routeDemandService.getTopK(k, by);
+    }
+}
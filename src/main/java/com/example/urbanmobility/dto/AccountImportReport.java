@@ -0,0 +1,10 @@
+package com.example.urbanmobility.dto;
+
+import java.util.List;
+
+// Outcome of a bulk import; only rejected rows are listed
+public record AccountImportReport(long imported, long rejected, List<RowError> errors) {
+
+    public record RowError(long row, String username, String error) {
+    }
+}
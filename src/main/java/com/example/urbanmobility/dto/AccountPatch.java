@@ -0,0 +1,30 @@
+package com.example.urbanmobility.dto;
+
+import com.fasterxml.jackson.annotation.JsonSetter;
+import com.fasterxml.jackson.annotation.Nulls;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountPatch {
+    @JsonSetter(nulls = Nulls.FAIL)
+    private String username;
+
+    @JsonSetter(nulls = Nulls.FAIL)
+    private String role;
+
+    @JsonSetter(nulls = Nulls.FAIL)
+    private String phone;
+
+    @JsonSetter(nulls = Nulls.FAIL)
+    private String paymentInfo;
+
+    @JsonSetter(nulls = Nulls.FAIL)
+    private Integer paymentHistory;
+
+    @JsonSetter(nulls = Nulls.FAIL)
+    private Boolean paymentSet;
+}
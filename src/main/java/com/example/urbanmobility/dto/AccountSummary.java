@@ -0,0 +1,5 @@
+package com.example.urbanmobility.dto;
+
+// Narrow read model for account listings; avoids loading payment data
+public record AccountSummary(long id, String username, String role) {
+}
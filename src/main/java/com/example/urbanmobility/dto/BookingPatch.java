@@ -0,0 +1,23 @@
+package com.example.urbanmobility.dto;
+
+import com.example.urbanmobility.model.BookingStatus;
+import com.fasterxml.jackson.annotation.JsonSetter;
+import com.fasterxml.jackson.annotation.Nulls;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// JSON Merge Patch body; an absent member stays null, an explicit null is rejected since every column is required
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingPatch {
+    @JsonSetter(nulls = Nulls.FAIL)
+    private Integer routeId;
+
+    @JsonSetter(nulls = Nulls.FAIL)
+    private String username;
+
+    @JsonSetter(nulls = Nulls.FAIL)
+    private BookingStatus status;
+}
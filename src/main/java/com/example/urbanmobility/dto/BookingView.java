@@ -0,0 +1,10 @@
+package com.example.urbanmobility.dto;
+
+import com.example.urbanmobility.model.BookingStatus;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+// R2DBC read model of the booking table; serializes like Booking
+@Table("booking")
+public record BookingView(@Id long bookingId, int routeId, String username, BookingStatus status) {
+}
@@ -0,0 +1,4 @@
+package com.example.urbanmobility.dto;
+
+public record RouteCount(int routeId, long count) {
+}
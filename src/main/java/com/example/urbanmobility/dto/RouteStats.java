@@ -0,0 +1,5 @@
+package com.example.urbanmobility.dto;
+
+// Live demand on one route: bookings holding a seat now, and bookings made within the stats window
+public record RouteStats(int routeId, int activeBookings, int recentBookings, double bookingsPerMinute) {
+}
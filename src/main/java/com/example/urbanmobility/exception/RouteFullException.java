@@ -0,0 +1,7 @@
+package com.example.urbanmobility.exception;
+
+public class RouteFullException extends RuntimeException {
+    public RouteFullException(String message) {
+        super(message);
+    }
+}
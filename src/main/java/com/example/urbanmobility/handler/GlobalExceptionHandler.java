@@ -1,51 +1,102 @@
 package com.example.urbanmobility.handler;
 
 import com.example.urbanmobility.exception.*;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
 @ControllerAdvice
 public class GlobalExceptionHandler {
+    private final MeterRegistry meterRegistry;
+
+    public GlobalExceptionHandler(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    // One counter per exception type; handled exceptions never reach the http.server.requests exception tag
+    private void count(Exception e) {
+        Counter.builder("urban.exceptions")
+                .tag("type", e.getClass().getSimpleName())
+                .register(meterRegistry)
+                .increment();
+    }
+
     @ExceptionHandler(AccountCreationFailedException.class)
     public ResponseEntity<String> handleAccountCreationFailedException(AccountCreationFailedException e) {
+        count(e);
         return new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR); //500 internal server error
     }
     @ExceptionHandler(DatabaseConnectionException.class)
     public ResponseEntity<String> handleDatabaseConnectionException(DatabaseConnectionException e) {
+        count(e);
         return new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR); //500 internal server error
     }
 
     @ExceptionHandler(EntityNotFoundException.class)
     public ResponseEntity<String> handleEntityNotFoundException(EntityNotFoundException e) {
+        count(e);
         return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND); //404 not found status
     }
+    @ExceptionHandler(IdempotencyKeyReusedException.class)
+    public ResponseEntity<String> handleIdempotencyKeyReusedException(IdempotencyKeyReusedException e) {
+        count(e);
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.UNPROCESSABLE_ENTITY); //422 unprocessable entity
+    }
+    // Backpressure from the write-behind booking queue
+    @ExceptionHandler(IngestQueueFullException.class)
+    public ResponseEntity<String> handleIngestQueueFullException(IngestQueueFullException e) {
+        count(e);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE) //503 service unavailable
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(e.getMessage());
+    }
     @ExceptionHandler(InvalidCardNumberException.class)
     public ResponseEntity<String> handleInvalidCardNumberException(InvalidCardNumberException e) {
+        count(e);
         return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST); //400 bad request
     }
     @ExceptionHandler(InvalidPermissionException.class)
     public ResponseEntity<String> handleInvalidPermissionException(InvalidPermissionException e) {
+        count(e);
         return new ResponseEntity<>(e.getMessage(), HttpStatus.FORBIDDEN); //403 forbidden
     }
     @ExceptionHandler(InvalidPhoneNumberException.class)
     public ResponseEntity<String> handleInvalidPhoneNumberException(InvalidPhoneNumberException e) {
+        count(e);
         return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST); //400 bad request
     }
 
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<String> handlePreconditionFailedException(PreconditionFailedException e) {
+        count(e);
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.PRECONDITION_FAILED); //412 precondition failed
+    }
+
     @ExceptionHandler(ResourceNotFoundException.class)
     public ResponseEntity<String> handleResourceNotFoundException(ResourceNotFoundException e) {
+        count(e);
         return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND); //404 not found status
     }
+    @ExceptionHandler(RouteFullException.class)
+    public ResponseEntity<String> handleRouteFullException(RouteFullException e) {
+        count(e);
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT); //409 conflict
+    }
     @ExceptionHandler(UsernameAlreadyExistsException.class)
     public ResponseEntity<String> handleUsernameAlreadyExistsException(UsernameAlreadyExistsException e) {
+        count(e);
         return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT); //409 conflict
     }
 
     @ExceptionHandler(ValidationException.class)
     public ResponseEntity<String> handleValidationException(ValidationException e) {
+        count(e);
         return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST); //400 bad request
     }
 
@@ -54,11 +105,20 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<String> handleIllegalArgumentException(IllegalArgumentException e) {
+        count(e);
         return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST); //400 bad request
     }
 
+    // Another writer committed between our read and our versioned write
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<String> handleObjectOptimisticLockingFailureException(ObjectOptimisticLockingFailureException e) {
+        count(e);
+        return new ResponseEntity<>("The resource was modified concurrently, retry with its current version", HttpStatus.CONFLICT); //409 conflict
+    }
+
     @ExceptionHandler(DataIntegrityViolationException.class)
     public ResponseEntity<String> handleDataIntegrityViolationException(DataIntegrityViolationException e) {
+        count(e);
         return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST); //400 bad request
     }
 }
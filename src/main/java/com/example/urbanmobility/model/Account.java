@@ -1,5 +1,7 @@
 package com.example.urbanmobility.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -12,11 +14,15 @@ import lombok.NoArgsConstructor;
 @Builder
 
 @Entity(name = "Account") //enables JPA
+@Table(name = "account", uniqueConstraints = @UniqueConstraint(name = Account.USERNAME_CONSTRAINT, columnNames = "username"))
 
 
 public class Account {
+    public static final String USERNAME_CONSTRAINT = "uk_account_username";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "account_seq")
+    @SequenceGenerator(name = "account_seq", sequenceName = "account_seq", allocationSize = 50)
     private long id;
 
             @Column(name = "username", nullable = false)
@@ -34,10 +40,17 @@ public class Account {
             @Column(name = "payment_history", nullable = false)
     private int paymentHistory;
 
-            @Column(name = "active_bookings", nullable = false)
-    private String activeBookings;
+            // Maintained by BookingService through single-statement increments, never by entity updates
+            @Column(name = "active_bookings", nullable = false, updatable = false)
+            @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private int activeBookings;
 
             @Column(name = "is_payment_set", nullable = false)
     private boolean isPaymentSet;
+
+            @Version
+            @Column(name = "version", nullable = false)
+            @JsonIgnore
+    private Long version;
 }
 
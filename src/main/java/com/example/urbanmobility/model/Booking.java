@@ -1,10 +1,14 @@
 package com.example.urbanmobility.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import org.hibernate.annotations.DynamicUpdate;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 @Data //enables getters and setters
 @AllArgsConstructor
@@ -12,9 +16,18 @@ import lombok.NoArgsConstructor;
 @Builder
 
 @Entity(name = "Booking") //enables JPA
+@DynamicUpdate // UPDATE statements list only the columns that changed
+@Table(name = "booking", indexes = {
+        @Index(name = "idx_booking_username", columnList = "username"),
+        @Index(name = "idx_booking_account", columnList = "account_id, booking_id"),
+        @Index(name = "idx_booking_route", columnList = "route_id, status")
+})
 public class Booking {
+    // Pooled sequence ids let Hibernate batch inserts, which IDENTITY rules out
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "booking_seq")
+    @SequenceGenerator(name = "booking_seq", sequenceName = "booking_seq", allocationSize = 50)
+    @Column(name = "booking_id")
     private long bookingId;
 
     @Column(name = "route_id", nullable = false)
@@ -23,4 +36,22 @@ public class Booking {
     @Column(name = "username", nullable = false)
     private String username;
 
+    // Owning account; username is kept alongside it for username-keyed lookups
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "account_id", nullable = false, foreignKey = @ForeignKey(name = "fk_booking_account"))
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Account account;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 16)
+    private BookingStatus status;
+
+    // Optimistic lock, null until first persisted; exposed to clients as the ETag rather than in the body
+    @Version
+    @Column(name = "version", nullable = false)
+    @JsonIgnore
+    private Long version;
+
 }
@@ -0,0 +1,7 @@
+package com.example.urbanmobility.model;
+
+public enum BookingStatus {
+    ACTIVE,
+    CANCELLED,
+    COMPLETED
+}
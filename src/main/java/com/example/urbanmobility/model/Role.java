@@ -0,0 +1,27 @@
+package com.example.urbanmobility.model;
+
+import java.util.Locale;
+
+public enum Role {
+    USER,
+    SUPPLIER,
+    ADMIN,
+    // Any role string that is not recognised; it never passes a role check
+    OTHER;
+
+    // Account roles are stored as free text, compared case-insensitively
+    public static Role of(String role) {
+        if (role == null) {
+            return OTHER;
+        }
+        try {
+            return valueOf(role.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return OTHER;
+        }
+    }
+
+    public String displayName() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
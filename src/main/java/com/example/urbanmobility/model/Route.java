@@ -0,0 +1,30 @@
+package com.example.urbanmobility.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data //enables getters and setters
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+
+@Entity(name = "Route") //enables JPA
+@Table(name = "route")
+public class Route {
+    // Assigned by the client; bookings refer to it through Booking.routeId
+    @Id
+    @Column(name = "route_id")
+    private int routeId;
+
+    @Column(name = "capacity", nullable = false)
+    private int capacity;
+
+    // Seats held by active bookings, written behind by RouteCapacityService
+    @Column(name = "reserved", nullable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private int reserved;
+}
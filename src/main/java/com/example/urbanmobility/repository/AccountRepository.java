@@ -1,15 +1,60 @@
 package com.example.urbanmobility.repository;
 
+import com.example.urbanmobility.dto.AccountSummary;
 import com.example.urbanmobility.model.Account;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface AccountRepository extends JpaRepository<Account, Long> {
+public interface AccountRepository extends JpaRepository<Account, Long>, AccountRepositoryCustom {
     Account findByUsername(String username);
     Account save(Account account);
     List<Account> findAll();
 
+    @Query("select new com.example.urbanmobility.dto.AccountSummary(a.id, a.username, a.role) "
+            + "from Account a where a.id > :after order by a.id")
+    List<AccountSummary> findSummariesAfter(@Param("after") long after, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.example.urbanmobility.dto.AccountSummary(a.id, a.username, a.role) "
+            + "from Account a order by a.id")
+    Stream<AccountSummary> streamSummaries();
+
+    @Query("select new com.example.urbanmobility.dto.AccountSummary(a.id, a.username, a.role) "
+            + "from Account a where a.username in :usernames")
+    List<AccountSummary> findSummariesByUsernameIn(@Param("usernames") Collection<String> usernames);
+
+    @Query("select a.username from Account a where a.username in :usernames")
+    List<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+    @Query("select a.id from Account a where a.username = :username")
+    Optional<Long> findIdByUsername(@Param("username") String username);
+
+    @Query("select a.username from Account a where a.id = :id")
+    Optional<String> findUsernameById(@Param("id") long id);
+
+    // A missing role reads as an empty string so that only a missing account is empty
+    @Query("select coalesce(a.role, '') from Account a where a.id = :id")
+    Optional<String> findRoleById(@Param("id") long id);
+
+    // Atomic in-place counter update; no read of the account row is needed. The counter is in the
+    // response body, so the version that serves as its ETag moves with it
+    @Transactional
+    @Modifying
+    @Query("update Account a set a.activeBookings = a.activeBookings + :delta, a.version = a.version + 1 where a.id = :id")
+    int adjustActiveBookings(@Param("id") long id, @Param("delta") int delta);
+
 }
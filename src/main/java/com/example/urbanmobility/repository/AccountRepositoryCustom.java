@@ -0,0 +1,15 @@
+package com.example.urbanmobility.repository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+public interface AccountRepositoryCustom {
+    // Selects only the requested columns, keyed by their JSON field names
+    List<Map<String, Object>> findFieldsAfter(List<String> fields, long after, int limit);
+
+    Stream<Map<String, Object>> streamFields(List<String> fields);
+
+    // Writes only the given attributes and bumps the version; a null version matches any
+    int patch(long id, Long version, Map<String, Object> changes);
+}
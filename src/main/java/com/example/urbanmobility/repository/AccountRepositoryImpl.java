@@ -0,0 +1,104 @@
+package com.example.urbanmobility.repository;
+
+import com.example.urbanmobility.model.Account;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.hibernate.jpa.HibernateHints;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+class AccountRepositoryImpl implements AccountRepositoryCustom {
+    // JSON field name -> entity attribute name
+    private static final Map<String, String> SELECTABLE_FIELDS = Map.of(
+            "id", "id",
+            "username", "username",
+            "role", "role",
+            "phone", "phone",
+            "paymentInfo", "paymentInfo",
+            "paymentHistory", "paymentHistory",
+            "activeBookings", "activeBookings",
+            "paymentSet", "isPaymentSet");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Map<String, Object>> findFieldsAfter(List<String> fields, long after, int limit) {
+        return createQuery(fields, after)
+                .setMaxResults(limit)
+                .getResultList()
+                .stream()
+                .map(tuple -> toMap(fields, tuple))
+                .toList();
+    }
+
+    @Override
+    public Stream<Map<String, Object>> streamFields(List<String> fields) {
+        return createQuery(fields, 0L)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, 500)
+                .getResultStream()
+                .map(tuple -> toMap(fields, tuple));
+    }
+
+    @Override
+    public int patch(long id, Long version, Map<String, Object> changes) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Account> update = cb.createCriteriaUpdate(Account.class);
+        Root<Account> account = update.from(Account.class);
+
+        changes.forEach((attribute, value) -> update.set(account.get(attribute), value));
+        update.set(account.<Long>get("version"), cb.sum(account.<Long>get("version"), 1L));
+
+        Predicate matches = cb.equal(account.get("id"), id);
+        if (version != null) {
+            matches = cb.and(matches, cb.equal(account.get("version"), version));
+        }
+        int updated = entityManager.createQuery(update.where(matches)).executeUpdate();
+        // Like @Modifying(clearAutomatically = true): a copy loaded earlier in the transaction would hide
+        // the new values from the re-read that follows; pending changes were flushed before the update
+        if (updated > 0) {
+            entityManager.clear();
+        }
+        return updated;
+    }
+
+    private TypedQuery<Tuple> createQuery(List<String> fields, long after) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Account> account = query.from(Account.class);
+
+        List<Selection<?>> selections = new ArrayList<>(fields.size());
+        for (String field : fields) {
+            String attribute = SELECTABLE_FIELDS.get(field);
+            if (attribute == null) {
+                throw new IllegalArgumentException("Unknown account field: " + field);
+            }
+            selections.add(account.get(attribute).alias(field));
+        }
+
+        query.multiselect(selections)
+                .where(cb.greaterThan(account.get("id"), after))
+                .orderBy(cb.asc(account.get("id")));
+        return entityManager.createQuery(query);
+    }
+
+    private static Map<String, Object> toMap(List<String> fields, Tuple tuple) {
+        Map<String, Object> row = new LinkedHashMap<>(fields.size() * 2);
+        for (String field : fields) {
+            row.put(field, tuple.get(field));
+        }
+        return row;
+    }
+}
@@ -1,10 +1,57 @@
 package com.example.urbanmobility.repository;
 
+import com.example.urbanmobility.dto.RouteCount;
 import com.example.urbanmobility.model.Booking;
+import com.example.urbanmobility.model.BookingStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface BookingRepository extends JpaRepository<Booking, Long> {
     List<Booking> findByUsername(String username);
+
+    long countByRouteIdAndStatus(int routeId, BookingStatus status);
+
+    long countByStatus(BookingStatus status);
+
+    // Served from idx_booking_route; one row per route
+    @Query("select new com.example.urbanmobility.dto.RouteCount(b.routeId, count(b)) from Booking b "
+            + "where b.status = :status group by b.routeId")
+    List<RouteCount> countByRoute(@Param("status") BookingStatus status);
+
+    // Keyset page: seeks past the last seen id instead of using OFFSET
+    List<Booking> findByBookingIdGreaterThanOrderByBookingIdAsc(long bookingId, Pageable pageable);
+
+    // One account's history in id order; both predicates are a single range of idx_booking_account
+    @Query("select b from Booking b where b.account.id = :accountId and b.bookingId > :after order by b.bookingId")
+    List<Booking> findAccountPage(@Param("accountId") long accountId, @Param("after") long after, Pageable pageable);
+
+    // Answered from idx_booking_account alone, without reading the booking rows
+    @Query("select count(b) from Booking b where b.account.id = :accountId")
+    long countByAccountId(@Param("accountId") long accountId);
+
+    @Query("select b from Booking b where b.account.id = :accountId")
+    List<Booking> findByAccountId(@Param("accountId") long accountId);
+
+    // Must be consumed inside a transaction and closed afterwards
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select b from Booking b order by b.bookingId")
+    Stream<Booking> streamAllOrderByBookingId();
+
+    // Keeps the denormalized username in step when an account is renamed; bumps the version so the
+    // bookings' ETags change with their bodies
+    @Transactional
+    @Modifying
+    @Query("update Booking b set b.username = :username, b.version = b.version + 1 "
+            + "where b.account.id = :accountId and b.username <> :username")
+    int renameAccountBookings(@Param("accountId") long accountId, @Param("username") String username);
 }
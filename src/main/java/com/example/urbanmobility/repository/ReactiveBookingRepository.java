@@ -0,0 +1,20 @@
+package com.example.urbanmobility.repository;
+
+import com.example.urbanmobility.dto.BookingView;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.data.repository.query.Param;
+import reactor.core.publisher.Flux;
+
+// Non-blocking counterpart of BookingRepository's read queries
+public interface ReactiveBookingRepository extends R2dbcRepository<BookingView, Long> {
+    Flux<BookingView> findByUsername(String username);
+
+    @Query("select booking_id, route_id, username, status from booking "
+            + "where booking_id > :after order by booking_id limit :limit")
+    Flux<BookingView> findPageAfter(@Param("after") long after, @Param("limit") int limit);
+
+    // Rows are pulled from the cursor as the subscriber requests them
+    @Query("select booking_id, route_id, username, status from booking order by booking_id")
+    Flux<BookingView> streamAllOrderByBookingId();
+}
@@ -0,0 +1,16 @@
+package com.example.urbanmobility.repository;
+
+import com.example.urbanmobility.model.Route;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface RouteRepository extends JpaRepository<Route, Integer> {
+
+    @Transactional
+    @Modifying
+    @Query("update Route r set r.reserved = :reserved where r.routeId = :routeId")
+    int updateReserved(@Param("routeId") int routeId, @Param("reserved") int reserved);
+}
@@ -0,0 +1,39 @@
+package com.example.urbanmobility.service;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.stereotype.Component;
+
+// Targeted eviction for the account caches filled by AccountService
+@Component
+public class AccountCache {
+    public static final String ACCOUNTS_BY_ID = "accountsById";
+    public static final String ACCOUNTS_BY_USERNAME = "accountsByUsername";
+
+    private final CacheManager cacheManager;
+
+    public AccountCache(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    // Inside a transaction the eviction is deferred until commit, so a concurrent
+    // read cannot put the pre-commit row back into the cache
+    public void evict(long id, String username) {
+        evict(ACCOUNTS_BY_ID, id);
+        if (username != null) {
+            evict(ACCOUNTS_BY_USERNAME, username);
+        }
+    }
+
+    public void evictUsername(String username) {
+        evict(ACCOUNTS_BY_USERNAME, username);
+    }
+
+    private void evict(String name, Object key) {
+        Cache cache = cacheManager.getCache(name);
+        if (cache != null) {
+            new TransactionAwareCacheDecorator(cache).evict(key);
+        }
+    }
+}
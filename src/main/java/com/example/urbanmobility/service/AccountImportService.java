@@ -0,0 +1,163 @@
+package com.example.urbanmobility.service;
+
+import com.example.urbanmobility.dto.AccountImportReport;
+import com.example.urbanmobility.dto.AccountImportReport.RowError;
+import com.example.urbanmobility.model.Account;
+import com.example.urbanmobility.repository.AccountRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Streams NDJSON account rows and imports them chunk by chunk
+@Service
+public class AccountImportService {
+    public static final int CHUNK_SIZE = 500;
+
+    private final AccountService accountService;
+    private final AccountRepository accountRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final AccountRoleIndex accountRoleIndex;
+    private final ObjectReader accountReader;
+
+    public AccountImportService(AccountService accountService, AccountRepository accountRepository,
+                                TransactionTemplate transactionTemplate, AccountRoleIndex accountRoleIndex,
+                                ObjectMapper objectMapper) {
+        this.accountService = accountService;
+        this.accountRepository = accountRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.accountRoleIndex = accountRoleIndex;
+        this.accountReader = objectMapper.readerFor(Account.class);
+    }
+
+    public AccountImportReport importAccounts(InputStream input) throws IOException {
+        List<RowError> errors = new ArrayList<>();
+        List<Row> chunk = new ArrayList<>(CHUNK_SIZE);
+        long imported = 0;
+        long rowNumber = 0;
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            rowNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                chunk.add(new Row(rowNumber, accountReader.readValue(line)));
+            } catch (JsonProcessingException e) {
+                errors.add(new RowError(rowNumber, null, "Malformed account: " + e.getOriginalMessage()));
+            }
+            if (chunk.size() == CHUNK_SIZE) {
+                imported += importChunk(chunk, errors);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            imported += importChunk(chunk, errors);
+        }
+        errors.sort(Comparator.comparingLong(RowError::row));
+        return new AccountImportReport(imported, errors.size(), errors);
+    }
+
+    private int importChunk(List<Row> chunk, List<RowError> errors) {
+        // Validation is CPU only, so rows are checked in parallel
+        List<RowError> invalid = chunk.parallelStream()
+                .map(this::validate)
+                .filter(error -> error != null)
+                .toList();
+        errors.addAll(invalid);
+        Set<Long> rejectedRows = new HashSet<>();
+        invalid.forEach(error -> rejectedRows.add(error.row()));
+
+        // Drop repeats within the chunk, then check the rest against the table with one IN query
+        Set<String> usernames = new HashSet<>();
+        List<Row> candidates = new ArrayList<>(chunk.size());
+        for (Row row : chunk) {
+            if (rejectedRows.contains(row.number())) {
+                continue;
+            }
+            if (usernames.add(row.account().getUsername())) {
+                candidates.add(row);
+            } else {
+                errors.add(duplicate(row));
+            }
+        }
+        if (candidates.isEmpty()) {
+            return 0;
+        }
+        Set<String> existing = new HashSet<>(accountRepository.findExistingUsernames(usernames));
+
+        List<Account> accounts = new ArrayList<>(candidates.size());
+        for (Row row : candidates) {
+            if (existing.contains(row.account().getUsername())) {
+                errors.add(duplicate(row));
+            } else {
+                Account account = row.account();
+                account.setId(0);
+                account.setVersion(null);
+                account.setActiveBookings(0);
+                accounts.add(account);
+            }
+        }
+        if (accounts.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            // Sent as JDBC batches on commit
+            transactionTemplate.executeWithoutResult(status -> accountRepository.saveAll(accounts));
+            accounts.forEach(account -> accountRoleIndex.put(account.getId(), account.getRole()));
+            return accounts.size();
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent writer took one of the usernames; fall back to row-by-row inserts
+            return importRowByRow(candidates, existing, errors);
+        }
+    }
+
+    private int importRowByRow(List<Row> candidates, Set<String> existing, List<RowError> errors) {
+        int imported = 0;
+        for (Row row : candidates) {
+            if (existing.contains(row.account().getUsername())) {
+                continue;
+            }
+            try {
+                accountService.createAccount(row.account());
+                imported++;
+            } catch (RuntimeException e) {
+                errors.add(new RowError(row.number(), row.account().getUsername(), e.getMessage()));
+            }
+        }
+        return imported;
+    }
+
+    private RowError validate(Row row) {
+        try {
+            accountService.validateNewAccount(row.account());
+            return null;
+        } catch (RuntimeException e) {
+            return new RowError(row.number(), row.account().getUsername(), e.getMessage());
+        }
+    }
+
+    private static RowError duplicate(Row row) {
+        return new RowError(row.number(), row.account().getUsername(),
+                "This username already exists. Try another username.");
+    }
+
+    private record Row(long number, Account account) {
+    }
+}
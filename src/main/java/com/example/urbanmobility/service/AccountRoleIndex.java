@@ -0,0 +1,56 @@
+package com.example.urbanmobility.service;
+
+import com.example.urbanmobility.model.Role;
+import com.example.urbanmobility.repository.AccountRepository;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+// Account id -> role, loaded lazily with a role-only query and kept in step by the account writes.
+// Held in the bounded, expiring accountRoles cache configured with the account caches.
+@Component
+public class AccountRoleIndex {
+    public static final String ACCOUNT_ROLES = "accountRoles";
+
+    private final AccountRepository accountRepository;
+    private final CacheManager cacheManager;
+
+    public AccountRoleIndex(AccountRepository accountRepository, CacheManager cacheManager) {
+        this.accountRepository = accountRepository;
+        this.cacheManager = cacheManager;
+    }
+
+    // The query runs outside the cache, so no cache lock is held while it waits on the database.
+    // Unknown ids are not remembered, so an account created later is still found.
+    public Optional<Role> roleOf(long accountId) {
+        Cache roles = cacheManager.getCache(ACCOUNT_ROLES);
+        Role cached = roles != null ? roles.get(accountId, Role.class) : null;
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<Role> role = accountRepository.findRoleById(accountId).map(Role::of);
+        if (roles != null) {
+            role.ifPresent(found -> roles.putIfAbsent(accountId, found));
+        }
+        return role;
+    }
+
+    public void put(long accountId, String role) {
+        Cache roles = cacheManager.getCache(ACCOUNT_ROLES);
+        if (roles != null) {
+            roles.put(accountId, Role.of(role));
+        }
+    }
+
+    // Dropped now and again after commit, so a concurrent lookup cannot reload the old role
+    public void remove(long accountId) {
+        Cache roles = cacheManager.getCache(ACCOUNT_ROLES);
+        if (roles != null) {
+            roles.evict(accountId);
+            new TransactionAwareCacheDecorator(roles).evict(accountId);
+        }
+    }
+}
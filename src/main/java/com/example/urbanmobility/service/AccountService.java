@@ -1,108 +1,276 @@
 package com.example.urbanmobility.service;
 
+import com.example.urbanmobility.dto.AccountPatch;
+import com.example.urbanmobility.dto.AccountSummary;
 import com.example.urbanmobility.exception.*;
 import com.example.urbanmobility.model.Account;
 import com.example.urbanmobility.repository.AccountRepository;
+import com.example.urbanmobility.repository.BookingRepository;
+import com.example.urbanmobility.validation.AccountFieldMask;
+import com.example.urbanmobility.validation.AccountValidator;
+import io.micrometer.core.annotation.Timed;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class AccountService {
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
+
     private final AccountRepository accountRepository;
+    private final BookingRepository bookingRepository;
+    private final AccountValidator accountValidator;
+    private final AccountCache accountCache;
+    private final AccountRoleIndex accountRoleIndex;
+    private final BookingService bookingService;
     @Autowired
-    public AccountService(AccountRepository accountRepository){
+    public AccountService(AccountRepository accountRepository, BookingRepository bookingRepository,
+                          AccountValidator accountValidator, AccountCache accountCache,
+                          AccountRoleIndex accountRoleIndex, BookingService bookingService){
 
         this.accountRepository = accountRepository;
+        this.bookingRepository = bookingRepository;
+        this.accountValidator = accountValidator;
+        this.accountCache = accountCache;
+        this.accountRoleIndex = accountRoleIndex;
+        this.bookingService = bookingService;
     }
 
 
+    @Timed(value = "urban.accounts.create", histogram = true)
     public Account createAccount(Account account) {
-        // Check if the username already exists
-        if (accountRepository.findByUsername(account.getUsername()) != null) {
-            throw new UsernameAlreadyExistsException("This username already exists. Try another username.");
-        }
-        // Check if the phone number is invalid
-        if (!isValidPhoneNumber(account.getPhone())) {
-            throw new InvalidPhoneNumberException("Invalid phone number. Please enter a correct phone number.");
-        }
-        // Check if the card number is invalid
-        if (!isValidCardNumber(account.getPaymentInfo())) {
-            throw new InvalidCardNumberException("Invalid card number format. Card number must have 16 digits.");
-        }
+        validateNewAccount(account);
         // Simulate an error that requires a transaction rollback
         if (account.getUsername().equals("error")) {
             throw new AccountCreationFailedException("Simulated account creation failure.");
         }
+        // Always insert a new row; a client supplied id would turn the save into a merge
+        account.setId(0);
+        account.setVersion(null);
+        account.setActiveBookings(0);
         try {
-            return accountRepository.save(account);
+            // The unique constraint on username replaces a separate findByUsername round trip
+            Account savedAccount = accountRepository.saveAndFlush(account);
+            accountCache.evictUsername(savedAccount.getUsername());
+            accountRoleIndex.put(savedAccount.getId(), savedAccount.getRole());
+            return savedAccount;
+        } catch (DataIntegrityViolationException ex) {
+            if (isUsernameConstraintViolation(ex)) {
+                throw new UsernameAlreadyExistsException("This username already exists. Try another username.");
+            }
+            throw ex;
         } catch (DataAccessException ex) {
             // Wrap the exception and re-throw it as a custom exception
             throw new DatabaseConnectionException("Failed to create the account due to a database connection error.", ex);
         }
     }
+
+    // Checks that need no database access; shared with the bulk import
+    public void validateNewAccount(Account account) {
+        if (account.getUsername() == null || account.getUsername().isBlank()) {
+            throw new ValidationException("Username is required.");
+        }
+        // Check if the phone number is invalid
+        if (!accountValidator.isValidPhoneNumber(account.getPhone())) {
+            throw new InvalidPhoneNumberException("Invalid phone number. Please enter a correct phone number.");
+        }
+        // Check if the card number is invalid
+        if (!accountValidator.isValidCardNumber(account.getPaymentInfo())) {
+            throw new InvalidCardNumberException("Invalid card number format. Card number must have 16 digits.");
+        }
+        if (!accountValidator.hasValidCardChecksum(account.getPaymentInfo())) {
+            throw new InvalidCardNumberException("Invalid card number. Please check the card number and try again.");
+        }
+    }
+
+    boolean isUsernameConstraintViolation(DataIntegrityViolationException ex) {
+        return ex.getCause() instanceof ConstraintViolationException violation
+                && violation.getConstraintName() != null
+                && violation.getConstraintName().toLowerCase().contains(Account.USERNAME_CONSTRAINT);
+    }
         //return accountRepository.save(account);
 
 
 
-    private boolean isValidPhoneNumber(String phoneNumber) {
-        if (phoneNumber == null || phoneNumber.isEmpty()) {
-            return false;
-        }
-        return phoneNumber.matches("[0-9]{10}");
+    // Misses are not cached, so a lookup of an account that is created later still finds it
+    @Cacheable(cacheNames = AccountCache.ACCOUNTS_BY_ID, unless = "#result == null")
+    public Optional <Account> getAccountById(long id) {
+
+        return accountRepository.findById(id);
+    }
+
+    @Cacheable(cacheNames = AccountCache.ACCOUNTS_BY_USERNAME, unless = "#result == null")
+    public Optional<Account> getAccountByUsername(String username) {
+        return Optional.ofNullable(accountRepository.findByUsername(username));
+    }
+    public List<AccountSummary> getAccountSummaries(long after, int limit) {
+        checkLimit(limit);
+        return accountRepository.findSummariesAfter(after, PageRequest.ofSize(limit));
+    }
+
+    public List<Map<String, Object>> getAccountFields(List<String> fields, long after, int limit) {
+        checkLimit(limit);
+        return accountRepository.findFieldsAfter(withId(fields), after, limit);
     }
 
-        private boolean isValidCardNumber(String cardNumber) {
-            if (cardNumber == null || cardNumber.isEmpty()) {
-                return false;
+    // Streams summaries, or only the requested fields when any are given
+    @Transactional(readOnly = true)
+    public void streamAccounts(List<String> fields, Consumer<Object> consumer) {
+        if (fields == null || fields.isEmpty()) {
+            try (Stream<AccountSummary> accounts = accountRepository.streamSummaries()) {
+                accounts.forEach(consumer);
             }
-            //Checking for 16 digits with spaces, disallowing letters and symbols
-            return cardNumber.matches("^[0-9 ]+$") && cardNumber.replaceAll(" ", "").matches("^[0-9]{16}$");
+        } else {
+            try (Stream<Map<String, Object>> accounts = accountRepository.streamFields(withId(fields))) {
+                accounts.forEach(consumer);
+            }
+        }
+    }
 
+    private void checkLimit(int limit) {
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE);
         }
+    }
 
+    // The id is always selected since it is the pagination cursor
+    private List<String> withId(List<String> fields) {
+        Set<String> selected = new LinkedHashSet<>();
+        selected.add("id");
+        selected.addAll(fields);
+        return new ArrayList<>(selected);
+    }
 
-    public Optional <Account> getAccountById(long id) {
 
-        return accountRepository.findById(id);
+    @Transactional
+    public Account updateAccount(Long accountId, Account updatedAccount, Long expectedVersion) {
+        String previousUsername = findUsername(accountId);
+        // A full replacement writes every column, so every field has to be present and non-empty
+        AccountPatch replacement = new AccountPatch(updatedAccount.getUsername(), updatedAccount.getRole(),
+                updatedAccount.getPhone(), updatedAccount.getPaymentInfo(),
+                updatedAccount.getPaymentHistory(), updatedAccount.isPaymentSet());
+        int fields = AccountFieldMask.supplied(replacement);
+        int empty = (AccountFieldMask.ALL & ~fields) | AccountFieldMask.blank(replacement, fields);
+        if (empty != 0) {
+            throw new IllegalArgumentException("Account fields cannot be empty: " + AccountFieldMask.names(empty));
+        }
+        checkFormats(replacement, fields);
+        writeAccount(accountId, previousUsername, replacement, fields, expectedVersion);
+        return readAccount(accountId);
     }
-    public List<Account> getAllAccounts() {
 
-        return accountRepository.findAll();
+    // Merge patch: only the supplied columns are written, in one conditional statement
+    @Transactional
+    public Account patchAccount(long accountId, AccountPatch patch, Long expectedVersion) {
+        int fields = AccountFieldMask.supplied(patch);
+        if (fields == 0) {
+            throw new IllegalArgumentException("Patch must contain at least one field");
+        }
+        int blank = AccountFieldMask.blank(patch, fields);
+        if (blank != 0) {
+            throw new IllegalArgumentException("Account fields cannot be empty: " + AccountFieldMask.names(blank));
+        }
+        checkFormats(patch, fields);
+        writeAccount(accountId, findUsername(accountId), patch, fields, expectedVersion);
+        return readAccount(accountId);
     }
 
+    // The stored row, with the new version and the columns the request cannot set, such as activeBookings
+    private Account readAccount(long accountId) {
+        return accountRepository.findById(accountId)
+                .orElseThrow(() -> new ResourceNotFoundException("Account with ID" + " " + accountId + " " + "does not exist"));
+    }
 
-    public Account updateAccount(Long accountId,Account updatedAccount) {
-        if (!accountRepository.existsById(accountId)) {
-            throw new ResourceNotFoundException("Account with ID" + " " + accountId + " " + "does not exist");
-        }
-        if (updatedAccount.getUsername() == null || updatedAccount.getUsername().isEmpty()) {
-            throw new IllegalArgumentException("Username field cannot be empty");
+    // The mask decides which formats are checked, the same for a replacement and a patch
+    private void checkFormats(AccountPatch patch, int fields) {
+        if (AccountFieldMask.has(fields, AccountFieldMask.PHONE) && !accountValidator.isValidPhoneNumber(patch.getPhone())) {
+            throw new InvalidPhoneNumberException("Invalid phone number. Please enter a correct phone number.");
         }
-        if (allFieldsNullOrEmpty(updatedAccount)) {
-            throw new IllegalArgumentException("Updated account must contain at least one non-empty field");
+        if (AccountFieldMask.has(fields, AccountFieldMask.PAYMENT_INFO)) {
+            if (!accountValidator.isValidCardNumber(patch.getPaymentInfo())) {
+                throw new InvalidCardNumberException("Invalid card number format. Card number must have 16 digits.");
+            }
+            if (!accountValidator.hasValidCardChecksum(patch.getPaymentInfo())) {
+                throw new InvalidCardNumberException("Invalid card number. Please check the card number and try again.");
+            }
         }
-        updatedAccount.setId(accountId);
-        return accountRepository.save(updatedAccount);
     }
-    private boolean allFieldsNullOrEmpty(Account account) {
-        return
-                account.getUsername() == null || account.getUsername().isEmpty() &&
-                        account.getRole() == null || account.getRole().isEmpty() &&
-                        account.getPaymentInfo() == null || account.getPaymentInfo().isEmpty() &&
-                        account.getPaymentHistory() == 0 &&
-                        account.getPhone() == null || account.getPhone().isEmpty() &&
-                        account.getActiveBookings() == null || account.getActiveBookings().isEmpty();
+
+    // The previous username is needed to evict its cache entry after the write
+    private String findUsername(long accountId) {
+        return accountRepository.findUsernameById(accountId)
+                .orElseThrow(() -> new ResourceNotFoundException("Account with ID" + " " + accountId + " " + "does not exist"));
     }
 
+    private void writeAccount(long accountId, String previousUsername, AccountPatch patch, int fields, Long expectedVersion) {
+        Map<String, Object> changes = new LinkedHashMap<>();
+        if (AccountFieldMask.has(fields, AccountFieldMask.USERNAME)) {
+            changes.put("username", patch.getUsername());
+        }
+        if (AccountFieldMask.has(fields, AccountFieldMask.ROLE)) {
+            changes.put("role", patch.getRole());
+        }
+        if (AccountFieldMask.has(fields, AccountFieldMask.PHONE)) {
+            changes.put("phone", patch.getPhone());
+        }
+        if (AccountFieldMask.has(fields, AccountFieldMask.PAYMENT_INFO)) {
+            changes.put("paymentInfo", patch.getPaymentInfo());
+        }
+        if (AccountFieldMask.has(fields, AccountFieldMask.PAYMENT_HISTORY)) {
+            changes.put("paymentHistory", patch.getPaymentHistory());
+        }
+        if (AccountFieldMask.has(fields, AccountFieldMask.PAYMENT_SET)) {
+            changes.put("isPaymentSet", patch.getPaymentSet());
+        }
+        // The row exists, so no match means another writer moved the version on
+        int updated;
+        try {
+            updated = accountRepository.patch(accountId, expectedVersion, changes);
+        } catch (DataIntegrityViolationException ex) {
+            if (isUsernameConstraintViolation(ex)) {
+                throw new UsernameAlreadyExistsException("This username already exists. Try another username.");
+            }
+            throw ex;
+        }
+        if (updated == 0) {
+            throw new PreconditionFailedException("Account with ID " + accountId + " is no longer at version " + expectedVersion);
+        }
+
+        if (AccountFieldMask.has(fields, AccountFieldMask.USERNAME) && !patch.getUsername().equals(previousUsername)) {
+            bookingRepository.renameAccountBookings(accountId, patch.getUsername());
+            accountCache.evictUsername(patch.getUsername());
+        }
+        accountCache.evict(accountId, previousUsername);
+        if (AccountFieldMask.has(fields, AccountFieldMask.ROLE)) {
+            accountRoleIndex.remove(accountId);
+        }
+    }
+    // The account's bookings reference it, so they are deleted first in the same transaction
+    @Transactional
     public void deleteAccount(long id) {
             // Checking if the account exists
-            if (accountRepository.existsById(id)) {
+            Optional<String> username = accountRepository.findUsernameById(id);
+            if (username.isPresent()) {
+                bookingService.deleteAccountBookings(id);
                 accountRepository.deleteById(id);
+                accountCache.evict(id, username.get());
+                accountRoleIndex.remove(id);
             } else {
                 throw new EntityNotFoundException("Account not found");
             }
@@ -2,33 +2,41 @@ package com.example.urbanmobility.service;
 
 import com.example.urbanmobility.exception.InvalidPermissionException;
 import com.example.urbanmobility.exception.ResourceNotFoundException;
-import com.example.urbanmobility.model.Account;
-import org.springframework.beans.factory.annotation.Autowired;
+import com.example.urbanmobility.model.Role;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.stereotype.Service;
 
 @Service
 public class AuthenticationService {
 
-    @Autowired
-    private AccountService accountService;
+    private final AccountRoleIndex accountRoleIndex;
 
-    public AuthenticationService(AccountService accountService) {
-        this.accountService = accountService;
+    public AuthenticationService(AccountRoleIndex accountRoleIndex) {
+        this.accountRoleIndex = accountRoleIndex;
     }
 
+    @Timed(value = "urban.auth.supplier", histogram = true)
     public String authenticateSupplier(long accountId) {
-        Account account = accountService.getAccountById(accountId)
+        return authenticate(accountId, Role.SUPPLIER);
+    }
+
+    // Only the role is needed, so the check is a lookup in the role index instead of an entity fetch
+    public String authenticate(long accountId, Role requiredRole) {
+        Role role = accountRoleIndex.roleOf(accountId)
                 .orElseThrow(() -> new ResourceNotFoundException("Account with id " + accountId + " not found!"));
 
-        verifySupplierRole(account);
+        verifyRole(role, requiredRole);
 
-        return "Authenticated successfully as a supplier!";
+        return "Authenticated successfully as " + withArticle(requiredRole.displayName()) + "!";
     }
 
-    private void verifySupplierRole(Account account) {
-        if (!"supplier".equalsIgnoreCase(account.getRole())) {
-            throw new InvalidPermissionException("You don't have the supplier role!");
+    private void verifyRole(Role role, Role requiredRole) {
+        if (role != requiredRole || role == Role.OTHER) {
+            throw new InvalidPermissionException("You don't have the " + requiredRole.displayName() + " role!");
         }
     }
-}
 
+    private String withArticle(String roleName) {
+        return ("aeiou".indexOf(roleName.charAt(0)) >= 0 ? "an " : "a ") + roleName;
+    }
+}
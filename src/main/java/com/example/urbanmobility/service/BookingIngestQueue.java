@@ -0,0 +1,263 @@
+package com.example.urbanmobility.service;
+
+import com.example.urbanmobility.exception.IngestQueueFullException;
+import com.example.urbanmobility.model.Account;
+import com.example.urbanmobility.model.Booking;
+import com.example.urbanmobility.model.BookingStatus;
+import com.example.urbanmobility.repository.AccountRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.Column;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.Table;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+// Write-behind booking inserts: accepted bookings wait in a bounded ring buffer and a single writer
+// thread commits them in batches, one transaction per batch. Enabled with app.bookings.ingest.enabled=true.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.bookings.ingest.enabled", havingValue = "true")
+public class BookingIngestQueue {
+    // Booking's mapped columns in declaration order, read from its JPA annotations
+    private static final List<Field> COLUMNS = mappedColumns();
+    private static final String INSERT = "insert into " + Booking.class.getAnnotation(Table.class).name() + " ("
+            + COLUMNS.stream().map(BookingIngestQueue::columnName).collect(Collectors.joining(", "))
+            + ") values (" + COLUMNS.stream().map(column -> "?").collect(Collectors.joining(", ")) + ")";
+
+    private final BlockingQueue<Pending> queue;
+    private final int batchSize;
+    private final Duration maxDelay;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AccountRepository accountRepository;
+    private final AccountCache accountCache;
+    private final RouteCapacityService routeCapacityService;
+    private final RouteDemandService routeDemandService;
+    private final BookingJournal bookingJournal;
+    private final EntityManagerFactory entityManagerFactory;
+    private final Thread writer = new Thread(this::run, "booking-ingest");
+    // Submitters hold the read lock from the running check to the offer, so once stop has taken the
+    // write lock nothing more can be queued and the writer drains everything that was accepted
+    private final ReadWriteLock accepting = new ReentrantReadWriteLock();
+    private volatile boolean running = true;
+
+    public BookingIngestQueue(@Value("${app.bookings.ingest.capacity}") int capacity,
+                              @Value("${app.bookings.ingest.batch-size}") int batchSize,
+                              @Value("${app.bookings.ingest.max-delay}") Duration maxDelay,
+                              JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                              AccountRepository accountRepository, AccountCache accountCache,
+                              RouteCapacityService routeCapacityService, RouteDemandService routeDemandService,
+                              Optional<BookingJournal> bookingJournal, EntityManagerFactory entityManagerFactory) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.maxDelay = maxDelay;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.accountRepository = accountRepository;
+        this.accountCache = accountCache;
+        this.routeCapacityService = routeCapacityService;
+        this.routeDemandService = routeDemandService;
+        this.bookingJournal = bookingJournal.orElse(null);
+        this.entityManagerFactory = entityManagerFactory;
+        this.writer.setDaemon(true);
+    }
+
+    @PostConstruct
+    public void start() {
+        writer.start();
+    }
+
+    // Assigns the id up front from the same pooled sequence Hibernate uses, so the caller can be answered
+    // before the row exists. The seat must already be reserved; it is given back if the insert fails.
+    public Ticket submit(Booking booking, long accountId) {
+        booking.setStatus(BookingStatus.ACTIVE);
+        assignId(booking, accountId);
+        booking.setVersion(0L);
+        Pending pending = new Pending(booking, accountId, new CompletableFuture<>());
+        accepting.readLock().lock();
+        try {
+            if (!running) {
+                throw new IngestQueueFullException("Booking ingestion is shutting down");
+            }
+            if (!queue.offer(pending)) {
+                throw new IngestQueueFullException("Booking ingestion queue is full, retry shortly");
+            }
+        } finally {
+            accepting.readLock().unlock();
+        }
+        return new Ticket(booking, pending.committed());
+    }
+
+    // Stops accepting and commits whatever is still queued
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        stopAccepting();
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+    }
+
+    private void stopAccepting() {
+        accepting.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            accepting.writeLock().unlock();
+        }
+    }
+
+    // persist draws a sequence id from Hibernate's own generator, one database call per allocation block,
+    // without writing anything; the context is closed unflushed and the row is inserted by the writer
+    private void assignId(Booking booking, long accountId) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            booking.setAccount(entityManager.getReference(Account.class, accountId));
+            entityManager.persist(booking);
+        } finally {
+            entityManager.close();
+            booking.setAccount(null);
+        }
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // Group commit: wait up to max-delay for the batch to fill, never longer
+                long deadline = System.nanoTime() + maxDelay.toNanos();
+                while (batch.size() < batchSize) {
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    Pending next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                stopAccepting();
+                failRemaining(e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // Only reached when the writer is interrupted; the queued bookings will never be written
+    private void failRemaining(InterruptedException cause) {
+        List<Pending> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        for (Pending pending : remaining) {
+            routeCapacityService.release(pending.booking().getRouteId());
+            pending.committed().completeExceptionally(cause);
+        }
+    }
+
+    private void write(List<Pending> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> insert(batch));
+            for (Pending pending : batch) {
+                routeDemandService.booked(pending.booking().getRouteId());
+                if (bookingJournal != null) {
+                    bookingJournal.record(BookingJournal.Op.CREATED, pending.booking().getBookingId(),
+                            pending.booking().getRouteId(), pending.booking().getUsername());
+                }
+                pending.committed().complete(pending.booking());
+            }
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                Pending pending = batch.get(0);
+                log.warn("Could not ingest booking {}", pending.booking().getBookingId(), e);
+                routeCapacityService.release(pending.booking().getRouteId());
+                pending.committed().completeExceptionally(e);
+                return;
+            }
+            // One bad row fails the whole batch, so the rows are retried one by one to isolate it
+            for (Pending pending : batch) {
+                write(List.of(pending));
+            }
+        }
+    }
+
+    private void insert(List<Pending> batch) {
+        jdbcTemplate.batchUpdate(INSERT, batch, batch.size(), (statement, pending) -> {
+            for (int i = 0; i < COLUMNS.size(); i++) {
+                statement.setObject(i + 1, columnValue(COLUMNS.get(i), pending));
+            }
+        });
+        // One counter update per account instead of one per booking
+        Map<Long, Integer> added = new HashMap<>();
+        Map<Long, String> usernames = new HashMap<>();
+        for (Pending pending : batch) {
+            added.merge(pending.accountId(), 1, Integer::sum);
+            usernames.put(pending.accountId(), pending.booking().getUsername());
+        }
+        added.forEach((accountId, count) -> {
+            accountRepository.adjustActiveBookings(accountId, count);
+            accountCache.evict(accountId, usernames.get(accountId));
+        });
+    }
+
+    private static List<Field> mappedColumns() {
+        List<Field> columns = new ArrayList<>();
+        for (Field field : Booking.class.getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers())
+                    && (field.isAnnotationPresent(Column.class) || field.isAnnotationPresent(JoinColumn.class))) {
+                ReflectionUtils.makeAccessible(field);
+                columns.add(field);
+            }
+        }
+        return List.copyOf(columns);
+    }
+
+    private static String columnName(Field field) {
+        JoinColumn joinColumn = field.getAnnotation(JoinColumn.class);
+        return joinColumn != null ? joinColumn.name() : field.getAnnotation(Column.class).name();
+    }
+
+    // The account is bound by id and enums by name, as the mapping stores them
+    private static Object columnValue(Field field, Pending pending) {
+        if (field.isAnnotationPresent(JoinColumn.class)) {
+            return pending.accountId();
+        }
+        Object value = ReflectionUtils.getField(field, pending.booking());
+        return value instanceof Enum<?> constant ? constant.name() : value;
+    }
+
+    public record Ticket(Booking booking, CompletableFuture<Booking> committed) {
+    }
+
+    private record Pending(Booking booking, long accountId, CompletableFuture<Booking> committed) {
+    }
+}
@@ -0,0 +1,287 @@
+package com.example.urbanmobility.service;
+
+import com.example.urbanmobility.repository.BookingRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Append-only log of booking changes in memory-mapped segment files, kept beside the booking table for
+// audit and for rebuilding in-memory state without JPA. Each segment starts with a header slot followed
+// by fixed 32-byte records; a zero op byte marks the end of the written part. Writes reach the page cache
+// when appended and the disk when a segment is sealed or the application stops.
+// Enabled with app.bookings.journal.enabled=true.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.bookings.journal.enabled", havingValue = "true")
+public class BookingJournal {
+    public static final int RECORD_SIZE = 32;
+    private static final int MAGIC = 0x424B4A31;
+    private static final int VERSION = 1;
+    private static final int FLAG_COVERS_ALL_BOOKINGS = 1;
+    private static final String SUFFIX = ".journal";
+    private static final Op[] OPS = Op.values();
+
+    // Stored as ordinal + 1, so 0 stays free for unwritten slots
+    public enum Op { CREATED, ACTIVATED, DEACTIVATED, UPDATED, DELETED }
+
+    @FunctionalInterface
+    public interface Visitor {
+        void accept(long bookingId, int routeId, int usernameHash, Op op, long timestamp);
+    }
+
+    private final Path directory;
+    private final int recordsPerSegment;
+    private final BookingRepository bookingRepository;
+
+    // Guarded by this
+    private final List<Path> sealedSegments = new ArrayList<>();
+    private MappedByteBuffer current;
+    private long currentBase;
+    private int currentCapacity;
+    private int position;
+    private boolean coversAllBookings;
+
+    public BookingJournal(@Value("${app.bookings.journal.dir}") Path directory,
+                          @Value("${app.bookings.journal.segment-size}") DataSize segmentSize,
+                          BookingRepository bookingRepository) {
+        if (segmentSize.toBytes() < 2 * RECORD_SIZE || segmentSize.toBytes() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Journal segment size must be between 64B and 2GB");
+        }
+        this.directory = directory;
+        this.recordsPerSegment = (int) (segmentSize.toBytes() / RECORD_SIZE) - 1;
+        this.bookingRepository = bookingRepository;
+    }
+
+    @PostConstruct
+    public synchronized void open() {
+        try {
+            Files.createDirectories(directory);
+            List<Path> segments;
+            try (Stream<Path> files = Files.list(directory)) {
+                segments = files.filter(file -> file.getFileName().toString().endsWith(SUFFIX)).sorted().toList();
+            }
+            if (segments.isEmpty()) {
+                // A journal started on an empty table has seen every booking and can replace the table as a source
+                coversAllBookings = bookingRepository.count() == 0;
+                current = createSegment(0, coversAllBookings);
+                currentBase = 0;
+                currentCapacity = recordsPerSegment;
+                position = 0;
+                return;
+            }
+            coversAllBookings = (readHeader(segments.get(0)).getInt(8) & FLAG_COVERS_ALL_BOOKINGS) != 0;
+            sealedSegments.addAll(segments.subList(0, segments.size() - 1));
+            Path last = segments.get(segments.size() - 1);
+            current = map(last, FileChannel.MapMode.READ_WRITE);
+            currentBase = current.getLong(16);
+            currentCapacity = capacityOf(current);
+            position = count(current);
+            log.info("Opened booking journal {} at record {}", directory, currentBase + position);
+            // An empty table under a written journal means the database was recreated, e.g. in-memory H2
+            if (coversAllBookings && currentBase + position > 0 && bookingRepository.count() == 0) {
+                markIncomplete("the booking table is empty");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open booking journal " + directory, e);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (current != null) {
+            current.force();
+        }
+    }
+
+    // True when the journal has recorded every booking the table holds, so replaying it rebuilds derived state
+    public synchronized boolean coversAllBookings() {
+        return coversAllBookings;
+    }
+
+    // Stops the journal from being used as a source from now on, also after restarts. Called when it is
+    // found out of step with the table, e.g. after the database was recreated or the journal was turned off
+    public synchronized void markIncomplete(String reason) {
+        if (!coversAllBookings) {
+            return;
+        }
+        log.warn("Booking journal {} no longer covers every booking: {}", directory, reason);
+        coversAllBookings = false;
+        Path first = sealedSegments.isEmpty() ? segmentPath(currentBase) : sealedSegments.get(0);
+        try (FileChannel channel = FileChannel.open(first, StandardOpenOption.WRITE)) {
+            ByteBuffer flags = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(0, 0);
+            channel.write(flags, 8);
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not update booking journal segment " + first, e);
+        }
+    }
+
+    public synchronized long size() {
+        return currentBase + position;
+    }
+
+    // Appended once the surrounding transaction commits, so the journal never holds a rolled back change
+    public void record(Op op, long bookingId, int routeId, String username) {
+        long timestamp = System.currentTimeMillis();
+        int usernameHash = username != null ? username.hashCode() : 0;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    append(op, bookingId, routeId, usernameHash, timestamp);
+                }
+            });
+        } else {
+            append(op, bookingId, routeId, usernameHash, timestamp);
+        }
+    }
+
+    public synchronized void append(Op op, long bookingId, int routeId, int usernameHash, long timestamp) {
+        if (position == currentCapacity) {
+            roll();
+        }
+        int offset = (position + 1) * RECORD_SIZE;
+        current.putLong(offset, bookingId);
+        current.putLong(offset + 8, timestamp);
+        current.putInt(offset + 16, routeId);
+        current.putInt(offset + 20, usernameHash);
+        // The op byte goes last; a record cut short by a crash reads as the end of the journal
+        current.put(offset + 28, (byte) (op.ordinal() + 1));
+        position++;
+    }
+
+    // Reads the records straight from the mapped pages, oldest first; nothing is copied or allocated per record.
+    // Records appended while the replay runs are not visited.
+    public long replay(Visitor visitor) {
+        List<Path> sealed;
+        ByteBuffer active;
+        int activeRecords;
+        synchronized (this) {
+            sealed = List.copyOf(sealedSegments);
+            active = current.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+            activeRecords = position;
+        }
+        long replayed = 0;
+        try {
+            for (Path segment : sealed) {
+                replayed += visit(map(segment, FileChannel.MapMode.READ_ONLY), Integer.MAX_VALUE, visitor);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not replay booking journal " + directory, e);
+        }
+        return replayed + visit(active, activeRecords, visitor);
+    }
+
+    private static int visit(ByteBuffer segment, int limit, Visitor visitor) {
+        int records = Math.min(limit, capacityOf(segment));
+        for (int record = 0; record < records; record++) {
+            int offset = (record + 1) * RECORD_SIZE;
+            byte op = segment.get(offset + 28);
+            if (op == 0) {
+                return record;
+            }
+            visitor.accept(segment.getLong(offset), segment.getInt(offset + 16), segment.getInt(offset + 20),
+                    OPS[op - 1], segment.getLong(offset + 8));
+        }
+        return records;
+    }
+
+    private void roll() {
+        current.force();
+        long base = currentBase + currentCapacity;
+        MappedByteBuffer next;
+        try {
+            next = createSegment(base, false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not start booking journal segment " + segmentPath(base), e);
+        }
+        sealedSegments.add(segmentPath(currentBase));
+        current = next;
+        currentBase = base;
+        currentCapacity = recordsPerSegment;
+        position = 0;
+    }
+
+    private MappedByteBuffer createSegment(long base, boolean coversAllBookings) throws IOException {
+        MappedByteBuffer segment;
+        try (FileChannel channel = FileChannel.open(segmentPath(base),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) (recordsPerSegment + 1) * RECORD_SIZE);
+        }
+        segment.order(ByteOrder.LITTLE_ENDIAN);
+        segment.putInt(0, MAGIC);
+        segment.putInt(4, VERSION);
+        segment.putInt(8, coversAllBookings ? FLAG_COVERS_ALL_BOOKINGS : 0);
+        segment.putLong(16, base);
+        return segment;
+    }
+
+    private MappedByteBuffer map(Path segment, FileChannel.MapMode mode) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = mode == FileChannel.MapMode.READ_ONLY
+                ? FileChannel.open(segment, StandardOpenOption.READ)
+                : FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(mode, 0, channel.size());
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.capacity() < RECORD_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a booking journal segment: " + segment);
+        }
+        return buffer;
+    }
+
+    private ByteBuffer readHeader(Path segment) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            channel.read(header, 0);
+        }
+        if (header.getInt(0) != MAGIC) {
+            throw new IOException("Not a booking journal segment: " + segment);
+        }
+        return header;
+    }
+
+    // Segments keep the size they were created with, even if the configured size changes later
+    private static int capacityOf(ByteBuffer segment) {
+        return segment.capacity() / RECORD_SIZE - 1;
+    }
+
+    // Position of the first unwritten slot; records are written in order, so the written slots form a prefix
+    private static int count(ByteBuffer segment) {
+        int low = 0;
+        int high = capacityOf(segment);
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (segment.get((middle + 1) * RECORD_SIZE + 28) != 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // Named after the sequence number of their first record, so the names sort in journal order
+    private Path segmentPath(long base) {
+        return directory.resolve(String.format("bookings-%019d%s", base, SUFFIX));
+    }
+}
@@ -1,21 +1,159 @@
 package com.example.urbanmobility.service;
 
+import com.example.urbanmobility.dto.AccountSummary;
+import com.example.urbanmobility.dto.BookingPatch;
+import com.example.urbanmobility.exception.PreconditionFailedException;
 import com.example.urbanmobility.exception.ResourceNotFoundException;
 import com.example.urbanmobility.model.Booking;
+import com.example.urbanmobility.model.BookingStatus;
+import com.example.urbanmobility.repository.AccountRepository;
 import com.example.urbanmobility.repository.BookingRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class BookingService {
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final int MAX_BATCH_SIZE = 1000;
+
     @Autowired
     private BookingRepository bookingRepository;
 
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountCache accountCache;
+
+    @Autowired
+    private RouteCapacityService routeCapacityService;
+
+    @Autowired
+    private RouteDemandService routeDemandService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Present only when app.bookings.ingest.enabled=true
+    @Autowired(required = false)
+    private BookingIngestQueue bookingIngestQueue;
+
+    // Present only when app.bookings.journal.enabled=true
+    @Autowired(required = false)
+    private BookingJournal bookingJournal;
+
+    @Timed(value = "urban.bookings.create", histogram = true)
+    @Transactional
     public Booking createBooking(Booking booking) {
+        validateNewBooking(booking);
+
+        long accountId = findAccountId(booking.getUsername());
+        routeCapacityService.reserve(booking.getRouteId());
+        booking.setAccount(accountRepository.getReferenceById(accountId));
+        booking.setStatus(BookingStatus.ACTIVE);
+        Booking savedBooking = bookingRepository.save(booking);
+        adjustActiveBookings(accountId, booking.getUsername(), 1);
+        routeDemandService.booked(booking.getRouteId());
+        journal(BookingJournal.Op.CREATED, savedBooking);
+        return savedBooking;
+    }
+
+    // All bookings are validated before any is written; the batch is stored in one transaction
+    @Transactional
+    public List<Booking> createBookings(List<Booking> bookings) {
+        if (bookings == null || bookings.isEmpty()) {
+            throw new IllegalArgumentException("Booking batch cannot be empty");
+        }
+        if (bookings.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Booking batch cannot contain more than " + MAX_BATCH_SIZE + " bookings");
+        }
+        bookings.forEach(this::validateNewBooking);
+
+        // One IN query resolves every owner instead of a lookup per booking
+        Set<String> usernames = bookings.stream().map(Booking::getUsername).collect(Collectors.toSet());
+        Map<String, Long> accountIds = accountRepository.findSummariesByUsernameIn(usernames).stream()
+                .collect(Collectors.toMap(AccountSummary::username, AccountSummary::id));
+
+        Map<Long, Integer> newActiveBookings = new HashMap<>();
+        for (Booking booking : bookings) {
+            Long accountId = accountIds.get(booking.getUsername());
+            if (accountId == null) {
+                throw new ResourceNotFoundException("Account with username " + booking.getUsername() + " not found!");
+            }
+            // Seats taken before a failure are returned when the batch rolls back
+            routeCapacityService.reserve(booking.getRouteId());
+            routeDemandService.booked(booking.getRouteId());
+            booking.setAccount(accountRepository.getReferenceById(accountId));
+            booking.setStatus(BookingStatus.ACTIVE);
+            newActiveBookings.merge(accountId, 1, Integer::sum);
+        }
+
+        // Inserts are flushed together at commit and sent as JDBC batches
+        List<Booking> savedBookings = bookingRepository.saveAll(bookings);
+        savedBookings.forEach(savedBooking -> journal(BookingJournal.Op.CREATED, savedBooking));
+        accountIds.forEach((username, accountId) -> {
+            Integer delta = newActiveBookings.get(accountId);
+            if (delta != null) {
+                adjustActiveBookings(accountId, username, delta);
+            }
+        });
+        return savedBookings;
+    }
+
+    private void journal(BookingJournal.Op op, Booking booking) {
+        journal(op, booking.getBookingId(), booking.getRouteId(), booking.getUsername());
+    }
+
+    private void journal(BookingJournal.Op op, long bookingId, int routeId, String username) {
+        if (bookingJournal != null) {
+            bookingJournal.record(op, bookingId, routeId, username);
+        }
+    }
+
+    // The counter is part of the cached account, so its entries are evicted with every change
+    private void adjustActiveBookings(long accountId, String username, int delta) {
+        accountRepository.adjustActiveBookings(accountId, delta);
+        accountCache.evict(accountId, username);
+    }
+
+    public boolean ingestsInBackground() {
+        return bookingIngestQueue != null;
+    }
+
+    // Validates and takes the seat now; the row itself is written by the ingest queue's next batch
+    public BookingIngestQueue.Ticket ingestBooking(Booking booking) {
+        if (bookingIngestQueue == null) {
+            throw new IllegalStateException("Booking ingestion is not enabled");
+        }
+        validateNewBooking(booking);
+
+        long accountId = findAccountId(booking.getUsername());
+        routeCapacityService.reserve(booking.getRouteId());
+        try {
+            return bookingIngestQueue.submit(booking, accountId);
+        } catch (RuntimeException e) {
+            routeCapacityService.release(booking.getRouteId());
+            throw e;
+        }
+    }
+
+    private void validateNewBooking(Booking booking) {
         if (booking == null) {
             throw new IllegalArgumentException("Booking object cannot be null");
         }
@@ -28,17 +166,68 @@ public class BookingService {
             throw new DataIntegrityViolationException("Invalid routeId for booking");
         }
 
-        return bookingRepository.save(booking);
+        booking.setBookingId(0);
+        booking.setVersion(null);
+    }
+
+    private long findAccountId(String username) {
+        return accountRepository.findIdByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException("Account with username " + username + " not found!"));
     }
 
     public Optional<Booking> getBookingById(long bookingId) {
         return bookingRepository.findById(bookingId);
     }
 
-    public List<Booking> getAllBookings() {
-        return bookingRepository.findAll();
+    public List<Booking> getBookings(long after, int limit) {
+        checkLimit(limit);
+        return bookingRepository.findByBookingIdGreaterThanOrderByBookingIdAsc(after, PageRequest.ofSize(limit));
     }
-    public Booking updateBooking(Long bookingId, Booking booking) {
+
+    public List<Booking> getAccountBookings(long accountId, long after, int limit) {
+        checkLimit(limit);
+        List<Booking> bookings = bookingRepository.findAccountPage(accountId, after, PageRequest.ofSize(limit));
+        // Only an empty page can hide a missing account
+        if (bookings.isEmpty()) {
+            requireAccount(accountId);
+        }
+        return bookings;
+    }
+
+    public long countAccountBookings(long accountId) {
+        long count = bookingRepository.countByAccountId(accountId);
+        if (count == 0) {
+            requireAccount(accountId);
+        }
+        return count;
+    }
+
+    private void checkLimit(int limit) {
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+    }
+
+    private void requireAccount(long accountId) {
+        if (!accountRepository.existsById(accountId)) {
+            throw new ResourceNotFoundException("Account with ID " + accountId + " does not exist");
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void streamBookings(Consumer<Booking> consumer) {
+        try (Stream<Booking> bookings = bookingRepository.streamAllOrderByBookingId()) {
+            bookings.forEach(booking -> {
+                consumer.accept(booking);
+                // Detaching keeps the persistence context from growing with the table
+                entityManager.detach(booking);
+            });
+        }
+    }
+
+    @Timed(value = "urban.bookings.update", histogram = true)
+    @Transactional
+    public Booking updateBooking(Long bookingId, Booking booking, Long expectedVersion) {
         if (bookingId == null) {
             throw new IllegalArgumentException("Booking ID cannot be null");
         }
@@ -47,19 +236,122 @@ public class BookingService {
             throw new IllegalArgumentException("Booking cannot be null");
         }
 
-        if (!bookingRepository.existsById(bookingId)) {
-            throw new ResourceNotFoundException("Booking with id " + bookingId + " not found!");
+        if (booking.getUsername() == null || booking.getUsername().trim().isEmpty()) {
+            throw new DataIntegrityViolationException("Username is required for booking");
+        }
+
+        if (booking.getRouteId() <= 0) {
+            throw new DataIntegrityViolationException("Invalid routeId for booking");
+        }
+
+        Booking existingBooking = bookingRepository.findById(bookingId)
+                .orElseThrow(() -> new ResourceNotFoundException("Booking with id " + bookingId + " not found!"));
+        return applyUpdate(bookingId, existingBooking, booking, expectedVersion);
+    }
+
+    // Merge patch: absent fields keep their current values; with dynamic updates only changed columns are written
+    @Transactional
+    public Booking patchBooking(long bookingId, BookingPatch patch, Long expectedVersion) {
+        if (patch.getRouteId() == null && patch.getUsername() == null && patch.getStatus() == null) {
+            throw new IllegalArgumentException("Patch must contain at least one field");
+        }
+        if (patch.getUsername() != null && patch.getUsername().trim().isEmpty()) {
+            throw new DataIntegrityViolationException("Username is required for booking");
+        }
+        if (patch.getRouteId() != null && patch.getRouteId() <= 0) {
+            throw new DataIntegrityViolationException("Invalid routeId for booking");
+        }
+
+        Booking existingBooking = bookingRepository.findById(bookingId)
+                .orElseThrow(() -> new ResourceNotFoundException("Booking with id " + bookingId + " not found!"));
+        Booking booking = Booking.builder()
+                .routeId(patch.getRouteId() != null ? patch.getRouteId() : existingBooking.getRouteId())
+                .username(patch.getUsername() != null ? patch.getUsername() : existingBooking.getUsername())
+                .status(patch.getStatus() != null ? patch.getStatus() : existingBooking.getStatus())
+                .build();
+        return applyUpdate(bookingId, existingBooking, booking, expectedVersion);
+    }
+
+    private Booking applyUpdate(long bookingId, Booking existingBooking, Booking booking, Long expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(existingBooking.getVersion())) {
+            throw new PreconditionFailedException("Booking with id " + bookingId + " is no longer at version " + expectedVersion);
+        }
+
+        long previousAccountId = existingBooking.getAccount().getId();
+        String previousUsername = existingBooking.getUsername();
+        int previousRouteId = existingBooking.getRouteId();
+        boolean wasActive = existingBooking.getStatus() == BookingStatus.ACTIVE;
+
+        long accountId = booking.getUsername().equals(previousUsername)
+                ? previousAccountId
+                : findAccountId(booking.getUsername());
+        if (booking.getStatus() == null) {
+            booking.setStatus(existingBooking.getStatus());
+        }
+        boolean isActive = booking.getStatus() == BookingStatus.ACTIVE;
+
+        // An active booking holds a seat on its route; moving it takes a seat on the new one
+        boolean routeChanged = booking.getRouteId() != previousRouteId;
+        if (isActive && (!wasActive || routeChanged)) {
+            routeCapacityService.reserve(booking.getRouteId());
+            routeDemandService.booked(booking.getRouteId());
+            journal(BookingJournal.Op.ACTIVATED, bookingId, booking.getRouteId(), booking.getUsername());
+        }
+        if (wasActive && (!isActive || routeChanged)) {
+            routeCapacityService.release(previousRouteId);
+            routeDemandService.released(previousRouteId);
+            journal(BookingJournal.Op.DEACTIVATED, bookingId, previousRouteId, previousUsername);
         }
 
         booking.setBookingId(bookingId);
-        return bookingRepository.save(booking);
+        // The flush writes "where version = ?", so a writer that committed since the read fails instead of being overwritten
+        booking.setVersion(existingBooking.getVersion());
+        booking.setAccount(accountId == previousAccountId
+                ? existingBooking.getAccount()
+                : accountRepository.getReferenceById(accountId));
+        Booking savedBooking = bookingRepository.save(booking);
+        journal(BookingJournal.Op.UPDATED, savedBooking);
+
+        // Move the active booking between counters when the owner or the status changes
+        boolean accountChanged = accountId != previousAccountId;
+        if (wasActive && (!isActive || accountChanged)) {
+            adjustActiveBookings(previousAccountId, previousUsername, -1);
+        }
+        if (isActive && (!wasActive || accountChanged)) {
+            adjustActiveBookings(accountId, booking.getUsername(), 1);
+        }
+        return savedBooking;
     }
 
+    @Timed(value = "urban.bookings.delete", histogram = true)
+    @Transactional
     public void deleteBooking(long bookingId) {
-        if (bookingRepository.existsById(bookingId)) {
-            bookingRepository.deleteById(bookingId);
-        } else {
-            throw new ResourceNotFoundException("Booking with id " + bookingId + " not found!");
+        Booking booking = bookingRepository.findById(bookingId)
+                .orElseThrow(() -> new ResourceNotFoundException("Booking with id " + bookingId + " not found!"));
+
+        if (booking.getStatus() == BookingStatus.ACTIVE) {
+            adjustActiveBookings(booking.getAccount().getId(), booking.getUsername(), -1);
+            routeCapacityService.release(booking.getRouteId());
+            routeDemandService.released(booking.getRouteId());
+            journal(BookingJournal.Op.DEACTIVATED, booking);
+        }
+        bookingRepository.delete(booking);
+        journal(BookingJournal.Op.DELETED, booking);
+    }
+
+    // Removes an account's bookings ahead of the account itself, returning their seats on commit.
+    // The account's own counter is left alone since the account row goes in the same transaction.
+    @Transactional
+    public void deleteAccountBookings(long accountId) {
+        List<Booking> bookings = bookingRepository.findByAccountId(accountId);
+        for (Booking booking : bookings) {
+            if (booking.getStatus() == BookingStatus.ACTIVE) {
+                routeCapacityService.release(booking.getRouteId());
+                routeDemandService.released(booking.getRouteId());
+                journal(BookingJournal.Op.DEACTIVATED, booking);
+            }
         }
+        bookingRepository.deleteAll(bookings);
+        bookings.forEach(booking -> journal(BookingJournal.Op.DELETED, booking));
     }
 }
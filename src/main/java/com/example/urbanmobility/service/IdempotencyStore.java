@@ -0,0 +1,89 @@
+package com.example.urbanmobility.service;
+
+import com.example.urbanmobility.exception.IdempotencyKeyReusedException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+// Idempotency-Key -> result of the first request, bounded and expiring; a retry gets the stored result
+// and a duplicate that arrives while the first is still running waits for it instead of running again
+@Component
+public class IdempotencyStore {
+    public static final String HEADER = "Idempotency-Key";
+
+    // Same fields as the request body, written in a fixed order so equal requests give equal bytes
+    private static final ObjectMapper CANONICAL = JsonMapper.builder()
+            .enable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+            .build();
+
+    private final ConcurrentMap<String, Entry> entries;
+
+    public IdempotencyStore(@Value("${app.idempotency.ttl}") Duration ttl,
+                            @Value("${app.idempotency.max-keys}") long maxKeys) {
+        Cache<String, Entry> cache = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterWrite(ttl)
+                .build();
+        this.entries = cache.asMap();
+    }
+
+    // The request is fingerprinted by the SHA-256 of its canonical JSON; reusing a key for a different
+    // request is rejected
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String scope, String key, Object request, Supplier<T> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        byte[] fingerprint = fingerprint(request);
+        Entry entry = new Entry(fingerprint, new CompletableFuture<>());
+        Entry existing = entries.putIfAbsent(scope + ':' + key, entry);
+        if (existing != null) {
+            if (!MessageDigest.isEqual(existing.fingerprint(), fingerprint)) {
+                throw new IdempotencyKeyReusedException("Idempotency-Key " + key + " was already used for a different request");
+            }
+            try {
+                return (T) existing.result().join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+
+        try {
+            T result = action.get();
+            entry.result().complete(result);
+            return result;
+        } catch (Throwable e) {
+            // A failed request is not remembered, so the client can retry it with the same key; errors
+            // are caught too, or duplicates waiting on the entry would wait forever
+            entries.remove(scope + ':' + key, entry);
+            entry.result().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private static byte[] fingerprint(Object request) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(CANONICAL.writeValueAsBytes(request));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not fingerprint the request", e);
+        }
+    }
+
+    private record Entry(byte[] fingerprint, CompletableFuture<Object> result) {
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.urbanmobility.service;
+
+import com.example.urbanmobility.exception.RouteFullException;
+import com.example.urbanmobility.model.BookingStatus;
+import com.example.urbanmobility.model.Route;
+import com.example.urbanmobility.repository.BookingRepository;
+import com.example.urbanmobility.repository.RouteRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Seat counts per route, kept in memory so a reservation is a compare-and-set on the route's
+// counter instead of a locking read of the route row. Counts are written behind to route.reserved.
+// The counters assume a single application instance owns the route table.
+@Service
+public class RouteCapacityService {
+    // Routes without a Route row have no capacity limit; they are not counted and never enter the map
+    private static final Seats UNCAPPED = new Seats(Integer.MAX_VALUE, new AtomicInteger());
+
+    private final RouteRepository routeRepository;
+    private final BookingRepository bookingRepository;
+    private final Map<Integer, Seats> seats = new ConcurrentHashMap<>();
+
+    public RouteCapacityService(RouteRepository routeRepository, BookingRepository bookingRepository) {
+        this.routeRepository = routeRepository;
+        this.bookingRepository = bookingRepository;
+    }
+
+    // Takes a seat now; a rollback of the surrounding transaction gives it back
+    public void reserve(int routeId) {
+        Seats route = seatsFor(routeId);
+        if (route == UNCAPPED) {
+            return;
+        }
+        if (!route.tryReserve()) {
+            throw new RouteFullException("Route " + routeId + " is fully booked");
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        route.release();
+                    }
+                }
+            });
+        }
+    }
+
+    // Gives a seat back once the surrounding transaction has committed
+    public void release(int routeId) {
+        Seats route = seatsFor(routeId);
+        if (route == UNCAPPED) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    route.release();
+                }
+            });
+        } else {
+            route.release();
+        }
+    }
+
+    public Route saveRoute(Route route) {
+        if (route == null || route.getRouteId() <= 0) {
+            throw new IllegalArgumentException("Route id must be positive");
+        }
+        if (route.getCapacity() < 0) {
+            throw new IllegalArgumentException("Route capacity cannot be negative");
+        }
+        // A lowered capacity keeps existing bookings and only stops new ones
+        Seats updated = seats.compute(route.getRouteId(), (routeId, current) -> new Seats(route.getCapacity(),
+                current != null ? current.reserved : new AtomicInteger(countActive(routeId))));
+        route.setReserved(updated.reserved.get());
+        return routeRepository.save(route);
+    }
+
+    public Optional<Route> getRoute(int routeId) {
+        return routeRepository.findById(routeId).map(route -> {
+            Seats current = seats.get(routeId);
+            if (current != null) {
+                route.setReserved(current.reserved.get());
+            }
+            return route;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.routes.flush-interval-ms}")
+    @PreDestroy
+    public void flush() {
+        seats.forEach((routeId, route) -> {
+            if (route.dirty.compareAndSet(true, false)) {
+                try {
+                    routeRepository.updateReserved(routeId, route.reserved.get());
+                } catch (DataAccessException e) {
+                    route.dirty.set(true);
+                    throw e;
+                }
+            }
+        });
+    }
+
+    // Loaded once per configured route; the count of active bookings is the truth even if a write-behind was lost.
+    // Unconfigured ids are looked up again each time, so ids made up by clients cannot grow the map.
+    private Seats seatsFor(int routeId) {
+        Seats current = seats.get(routeId);
+        if (current != null) {
+            return current;
+        }
+        if (routeId <= 0) {
+            return UNCAPPED;
+        }
+        Optional<Route> route = routeRepository.findById(routeId);
+        if (route.isEmpty()) {
+            return UNCAPPED;
+        }
+        Seats loaded = new Seats(route.get().getCapacity(), new AtomicInteger(countActive(routeId)));
+        current = seats.putIfAbsent(routeId, loaded);
+        return current != null ? current : loaded;
+    }
+
+    private int countActive(int routeId) {
+        return (int) bookingRepository.countByRouteIdAndStatus(routeId, BookingStatus.ACTIVE);
+    }
+
+    private static final class Seats {
+        private final int capacity;
+        private final AtomicInteger reserved;
+        private final AtomicBoolean dirty = new AtomicBoolean();
+
+        private Seats(int capacity, AtomicInteger reserved) {
+            this.capacity = capacity;
+            this.reserved = reserved;
+        }
+
+        boolean tryReserve() {
+            int current;
+            do {
+                current = reserved.get();
+                if (current >= capacity) {
+                    return false;
+                }
+            } while (!reserved.compareAndSet(current, current + 1));
+            dirty.set(true);
+            return true;
+        }
+
+        void release() {
+            reserved.updateAndGet(current -> current > 0 ? current - 1 : 0);
+            dirty.set(true);
+        }
+    }
+}
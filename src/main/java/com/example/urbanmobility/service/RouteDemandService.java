@@ -0,0 +1,364 @@
+package com.example.urbanmobility.service;
+
+import com.example.urbanmobility.dto.RouteCount;
+import com.example.urbanmobility.dto.RouteStats;
+import com.example.urbanmobility.model.BookingStatus;
+import com.example.urbanmobility.repository.BookingRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+
+// Per-route demand kept in memory, so the hottest routes are found without grouping the booking table.
+// Route ids key an open-addressed int table; each slot owns an active-bookings counter and a ring of
+// per-interval booking counts covering the stats window, with a running total of the ring that drops
+// intervals as they leave the window. Counters change only once the booking write has committed and,
+// like the seat counts, assume a single application instance.
+@Service
+public class RouteDemandService {
+    public static final int MAX_TOP_K = 100;
+    private static final int BUCKETS = 60;
+    private static final int FREE = 0;
+    private static final int INITIAL_SLOTS = 64;
+
+    public enum Ranking { ACTIVE, RECENT }
+
+    private final BookingRepository bookingRepository;
+    private final BookingJournal bookingJournal;
+    private final long bucketMillis;
+    private final LongSupplier clock;
+
+    // Guarded by this. Route ids are positive, so 0 marks a free slot
+    private int[] routeIds = new int[INITIAL_SLOTS];
+    private int[] active = new int[INITIAL_SLOTS];
+    private int[] bucketCounts = new int[INITIAL_SLOTS * BUCKETS];
+    private long[] bucketIntervals = new long[INITIAL_SLOTS * BUCKETS];
+    private int[] recent = new int[INITIAL_SLOTS];
+    private long[] advancedTo = new long[INITIAL_SLOTS];
+    private int size;
+
+    @Autowired
+    public RouteDemandService(BookingRepository bookingRepository, Optional<BookingJournal> bookingJournal,
+                              @Value("${app.routes.stats.window}") Duration window) {
+        this(bookingRepository, bookingJournal, window, System::currentTimeMillis);
+    }
+
+    RouteDemandService(BookingRepository bookingRepository, Optional<BookingJournal> bookingJournal, Duration window,
+                       LongSupplier clock) {
+        this.bookingRepository = bookingRepository;
+        this.bookingJournal = bookingJournal.orElse(null);
+        this.bucketMillis = Math.max(1, window.toMillis() / BUCKETS);
+        this.clock = clock;
+    }
+
+    // Active counts start from the journal when it holds every booking, otherwise from the table.
+    // The window only sees bookings made since startup.
+    @PostConstruct
+    public void load() {
+        if (bookingJournal != null && bookingJournal.coversAllBookings() && loadFromJournal()) {
+            return;
+        }
+        List<RouteCount> counts = bookingRepository.countByRoute(BookingStatus.ACTIVE);
+        synchronized (this) {
+            for (RouteCount count : counts) {
+                if (count.routeId() > 0) {
+                    active[slotFor(count.routeId())] = (int) count.count();
+                }
+            }
+        }
+    }
+
+    // The replay is checked against two counts the table answers from its indexes; a journal that was
+    // off for a while or outlived its database disagrees, and is not trusted again
+    private boolean loadFromJournal() {
+        long[] totals = new long[2];
+        synchronized (this) {
+            bookingJournal.replay((bookingId, routeId, usernameHash, op, timestamp) -> {
+                switch (op) {
+                    case CREATED -> totals[0]++;
+                    case DELETED -> totals[0]--;
+                    default -> {
+                    }
+                }
+                if (routeId > 0) {
+                    int slot = slotFor(routeId);
+                    switch (op) {
+                        case CREATED, ACTIVATED -> active[slot]++;
+                        case DEACTIVATED -> active[slot] = Math.max(0, active[slot] - 1);
+                        default -> {
+                        }
+                    }
+                }
+            });
+            for (int slot = 0; slot < routeIds.length; slot++) {
+                totals[1] += active[slot];
+            }
+        }
+        long bookings = bookingRepository.count();
+        long activeBookings = bookingRepository.countByStatus(BookingStatus.ACTIVE);
+        if (totals[0] == bookings && totals[1] == activeBookings) {
+            return true;
+        }
+        bookingJournal.markIncomplete("journal holds " + totals[0] + " bookings (" + totals[1] + " active), table holds "
+                + bookings + " (" + activeBookings + " active)");
+        synchronized (this) {
+            routeIds = new int[INITIAL_SLOTS];
+            active = new int[INITIAL_SLOTS];
+            bucketCounts = new int[INITIAL_SLOTS * BUCKETS];
+            bucketIntervals = new long[INITIAL_SLOTS * BUCKETS];
+            recent = new int[INITIAL_SLOTS];
+            advancedTo = new long[INITIAL_SLOTS];
+            size = 0;
+        }
+        return false;
+    }
+
+    // A booking started holding a seat on the route; it also counts towards the route's recent demand
+    public void booked(int routeId) {
+        afterCommit(() -> record(routeId, 1));
+    }
+
+    // A booking stopped holding a seat on the route: cancelled, moved or deleted
+    public void released(int routeId) {
+        afterCommit(() -> record(routeId, -1));
+    }
+
+    public synchronized RouteStats getStats(int routeId) {
+        int slot = find(routeId);
+        return slot < 0 ? new RouteStats(routeId, 0, 0, 0) : statsOf(slot, currentInterval());
+    }
+
+    public synchronized List<RouteStats> getStats() {
+        long interval = currentInterval();
+        List<RouteStats> stats = new ArrayList<>(size);
+        for (int slot = 0; slot < routeIds.length; slot++) {
+            if (routeIds[slot] != FREE) {
+                stats.add(statsOf(slot, interval));
+            }
+        }
+        stats.sort(Comparator.comparingInt(RouteStats::routeId));
+        return stats;
+    }
+
+    // Bounded min-heap over the slots, O(routes * log k); routes with no demand are left out
+    public List<RouteStats> getTopK(int k, Ranking ranking) {
+        if (k <= 0 || k > MAX_TOP_K) {
+            throw new IllegalArgumentException("k must be between 1 and " + MAX_TOP_K);
+        }
+        int[] heapSlots = new int[k];
+        int[] heapScores = new int[k];
+        int heapSize = 0;
+        List<RouteStats> top;
+        synchronized (this) {
+            long interval = currentInterval();
+            for (int slot = 0; slot < routeIds.length; slot++) {
+                if (routeIds[slot] == FREE) {
+                    continue;
+                }
+                int score = ranking == Ranking.ACTIVE ? active[slot] : recent(slot, interval);
+                if (score == 0) {
+                    continue;
+                }
+                if (heapSize < k) {
+                    heapSlots[heapSize] = slot;
+                    heapScores[heapSize] = score;
+                    siftUp(heapSlots, heapScores, heapSize++);
+                } else if (ranksBelow(heapSlots[0], heapScores[0], slot, score)) {
+                    heapSlots[0] = slot;
+                    heapScores[0] = score;
+                    siftDown(heapSlots, heapScores, heapSize);
+                }
+            }
+            top = new ArrayList<>(heapSize);
+            for (int i = 0; i < heapSize; i++) {
+                top.add(statsOf(heapSlots[i], interval));
+            }
+        }
+        Comparator<RouteStats> byScore = ranking == Ranking.ACTIVE
+                ? Comparator.comparingInt(RouteStats::activeBookings)
+                : Comparator.comparingInt(RouteStats::recentBookings);
+        top.sort(byScore.reversed().thenComparingInt(RouteStats::routeId));
+        return top;
+    }
+
+    private void afterCommit(Runnable update) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    update.run();
+                }
+            });
+        } else {
+            update.run();
+        }
+    }
+
+    private synchronized void record(int routeId, int delta) {
+        if (routeId <= 0) {
+            return;
+        }
+        int slot = slotFor(routeId);
+        active[slot] = Math.max(0, active[slot] + delta);
+        if (delta > 0) {
+            long interval = currentInterval();
+            advance(slot, interval);
+            int bucket = slot * BUCKETS + (int) (interval % BUCKETS);
+            // A bucket last written a full window ago has already left the total and is reused
+            if (bucketIntervals[bucket] != interval) {
+                bucketIntervals[bucket] = interval;
+                bucketCounts[bucket] = 0;
+            }
+            bucketCounts[bucket]++;
+            recent[slot]++;
+        }
+    }
+
+    private long currentInterval() {
+        return clock.getAsLong() / bucketMillis;
+    }
+
+    private int recent(int slot, long interval) {
+        advance(slot, interval);
+        return recent[slot];
+    }
+
+    // Stepping to an interval drops the bucket written one window before it, so each bucket is
+    // subtracted exactly once and a read costs the intervals elapsed since the route was last seen
+    private void advance(int slot, long interval) {
+        long from = advancedTo[slot];
+        if (interval <= from) {
+            return;
+        }
+        advancedTo[slot] = interval;
+        if (interval - from >= BUCKETS) {
+            recent[slot] = 0;
+            return;
+        }
+        for (long step = from + 1; step <= interval; step++) {
+            int bucket = slot * BUCKETS + (int) (step % BUCKETS);
+            if (bucketIntervals[bucket] == step - BUCKETS) {
+                recent[slot] -= bucketCounts[bucket];
+                bucketCounts[bucket] = 0;
+            }
+        }
+    }
+
+    private RouteStats statsOf(int slot, long interval) {
+        int recentBookings = recent(slot, interval);
+        return new RouteStats(routeIds[slot], active[slot], recentBookings,
+                recentBookings * 60_000.0 / (bucketMillis * BUCKETS));
+    }
+
+    private int find(int routeId) {
+        int mask = routeIds.length - 1;
+        for (int slot = hash(routeId) & mask; routeIds[slot] != FREE; slot = (slot + 1) & mask) {
+            if (routeIds[slot] == routeId) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private int slotFor(int routeId) {
+        int mask = routeIds.length - 1;
+        int slot = hash(routeId) & mask;
+        while (routeIds[slot] != FREE) {
+            if (routeIds[slot] == routeId) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        // Kept at most half full so probe sequences stay short
+        if ((size + 1) * 2 > routeIds.length) {
+            grow();
+            return slotFor(routeId);
+        }
+        routeIds[slot] = routeId;
+        size++;
+        return slot;
+    }
+
+    private void grow() {
+        int[] oldRouteIds = routeIds;
+        int[] oldActive = active;
+        int[] oldBucketCounts = bucketCounts;
+        long[] oldBucketIntervals = bucketIntervals;
+        int[] oldRecent = recent;
+        long[] oldAdvancedTo = advancedTo;
+        int slots = oldRouteIds.length * 2;
+        routeIds = new int[slots];
+        active = new int[slots];
+        bucketCounts = new int[slots * BUCKETS];
+        bucketIntervals = new long[slots * BUCKETS];
+        recent = new int[slots];
+        advancedTo = new long[slots];
+        size = 0;
+        for (int oldSlot = 0; oldSlot < oldRouteIds.length; oldSlot++) {
+            if (oldRouteIds[oldSlot] != FREE) {
+                int slot = slotFor(oldRouteIds[oldSlot]);
+                active[slot] = oldActive[oldSlot];
+                recent[slot] = oldRecent[oldSlot];
+                advancedTo[slot] = oldAdvancedTo[oldSlot];
+                System.arraycopy(oldBucketCounts, oldSlot * BUCKETS, bucketCounts, slot * BUCKETS, BUCKETS);
+                System.arraycopy(oldBucketIntervals, oldSlot * BUCKETS, bucketIntervals, slot * BUCKETS, BUCKETS);
+            }
+        }
+    }
+
+    private static int hash(int routeId) {
+        int h = routeId * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    // The heap root is the weakest entry: lowest score, and on a tie the higher route id
+    private boolean ranksBelow(int slotA, int scoreA, int slotB, int scoreB) {
+        return scoreA < scoreB || (scoreA == scoreB && routeIds[slotA] > routeIds[slotB]);
+    }
+
+    private void siftUp(int[] slots, int[] scores, int index) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (!ranksBelow(slots[index], scores[index], slots[parent], scores[parent])) {
+                return;
+            }
+            swap(slots, scores, index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int[] slots, int[] scores, int heapSize) {
+        int index = 0;
+        while (true) {
+            int weakest = index;
+            for (int child = 2 * index + 1; child <= 2 * index + 2 && child < heapSize; child++) {
+                if (ranksBelow(slots[child], scores[child], slots[weakest], scores[weakest])) {
+                    weakest = child;
+                }
+            }
+            if (weakest == index) {
+                return;
+            }
+            swap(slots, scores, index, weakest);
+            index = weakest;
+        }
+    }
+
+    private static void swap(int[] slots, int[] scores, int i, int j) {
+        int slot = slots[i];
+        slots[i] = slots[j];
+        slots[j] = slot;
+        int score = scores[i];
+        scores[i] = scores[j];
+        scores[j] = score;
+    }
+}
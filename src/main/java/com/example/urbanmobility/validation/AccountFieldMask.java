@@ -0,0 +1,55 @@
+package com.example.urbanmobility.validation;
+
+import com.example.urbanmobility.dto.AccountPatch;
+
+import java.util.StringJoiner;
+
+// One bit per writable account field; a request's mask is computed once and then drives validation,
+// the column list of the update and which caches are invalidated
+public final class AccountFieldMask {
+    public static final int USERNAME = 1;
+    public static final int ROLE = 1 << 1;
+    public static final int PHONE = 1 << 2;
+    public static final int PAYMENT_INFO = 1 << 3;
+    public static final int PAYMENT_HISTORY = 1 << 4;
+    public static final int PAYMENT_SET = 1 << 5;
+    public static final int ALL = USERNAME | ROLE | PHONE | PAYMENT_INFO | PAYMENT_HISTORY | PAYMENT_SET;
+
+    // Indexed by bit position
+    private static final String[] NAMES = {"username", "role", "phone", "paymentInfo", "paymentHistory", "paymentSet"};
+
+    private AccountFieldMask() {
+    }
+
+    // Members present in the request, empty or not
+    public static int supplied(AccountPatch patch) {
+        return (patch.getUsername() != null ? USERNAME : 0)
+                | (patch.getRole() != null ? ROLE : 0)
+                | (patch.getPhone() != null ? PHONE : 0)
+                | (patch.getPaymentInfo() != null ? PAYMENT_INFO : 0)
+                | (patch.getPaymentHistory() != null ? PAYMENT_HISTORY : 0)
+                | (patch.getPaymentSet() != null ? PAYMENT_SET : 0);
+    }
+
+    // Supplied text members that are blank; every text column is required, so these are rejected
+    public static int blank(AccountPatch patch, int supplied) {
+        return (has(supplied, USERNAME) && patch.getUsername().isBlank() ? USERNAME : 0)
+                | (has(supplied, ROLE) && patch.getRole().isBlank() ? ROLE : 0)
+                | (has(supplied, PHONE) && patch.getPhone().isBlank() ? PHONE : 0)
+                | (has(supplied, PAYMENT_INFO) && patch.getPaymentInfo().isBlank() ? PAYMENT_INFO : 0);
+    }
+
+    public static boolean has(int mask, int field) {
+        return (mask & field) != 0;
+    }
+
+    public static String names(int mask) {
+        StringJoiner names = new StringJoiner(", ");
+        for (int bit = 0; bit < NAMES.length; bit++) {
+            if (has(mask, 1 << bit)) {
+                names.add(NAMES[bit]);
+            }
+        }
+        return names.toString();
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.urbanmobility.validation;
+
+import org.springframework.stereotype.Component;
+
+// Hand-written char loops: no Pattern compilation and no intermediate strings per call
+@Component
+public class AccountValidator {
+    public static final int PHONE_DIGITS = 10;
+    public static final int CARD_DIGITS = 16;
+
+    // Exactly ten ASCII digits
+    public boolean isValidPhoneNumber(String phoneNumber) {
+        if (phoneNumber == null || phoneNumber.length() != PHONE_DIGITS) {
+            return false;
+        }
+        for (int i = 0; i < PHONE_DIGITS; i++) {
+            if (!isDigit(phoneNumber.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Sixteen ASCII digits, optionally separated by spaces; letters and symbols are rejected
+    public boolean isValidCardNumber(String cardNumber) {
+        if (cardNumber == null || cardNumber.isEmpty()) {
+            return false;
+        }
+        int digits = 0;
+        for (int i = 0; i < cardNumber.length(); i++) {
+            char c = cardNumber.charAt(i);
+            if (isDigit(c)) {
+                digits++;
+            } else if (c != ' ') {
+                return false;
+            }
+        }
+        return digits == CARD_DIGITS;
+    }
+
+    // Luhn checksum over the digits, ignoring spaces; expects a number that passed isValidCardNumber
+    public boolean hasValidCardChecksum(String cardNumber) {
+        int sum = 0;
+        boolean doubled = false;
+        for (int i = cardNumber.length() - 1; i >= 0; i--) {
+            char c = cardNumber.charAt(i);
+            if (c == ' ') {
+                continue;
+            }
+            int digit = c - '0';
+            if (doubled) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+            doubled = !doubled;
+        }
+        return sum % 10 == 0;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
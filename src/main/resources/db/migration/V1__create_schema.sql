@@ -0,0 +1,60 @@
+-- MySQL schema matching the JPA mapping; Hibernate validates against it in prod instead of changing it
+create table account (
+    active_bookings integer not null,
+    is_payment_set bit not null,
+    payment_history integer not null,
+    id bigint not null,
+    version bigint not null,
+    payment_info varchar(255) not null,
+    phone varchar(255) not null,
+    role varchar(255) not null,
+    username varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+-- MySQL has no sequences; Hibernate keeps the pooled sequences in one-row tables
+create table account_seq (
+    next_val bigint
+) engine=InnoDB;
+
+insert into account_seq values (1);
+
+create table booking (
+    route_id integer not null,
+    account_id bigint not null,
+    booking_id bigint not null,
+    version bigint not null,
+    status enum ('ACTIVE','CANCELLED','COMPLETED') not null,
+    username varchar(255) not null,
+    primary key (booking_id)
+) engine=InnoDB;
+
+create table booking_seq (
+    next_val bigint
+) engine=InnoDB;
+
+insert into booking_seq values (1);
+
+create table route (
+    capacity integer not null,
+    reserved integer not null,
+    route_id integer not null,
+    primary key (route_id)
+) engine=InnoDB;
+
+alter table account
+    add constraint uk_account_username unique (username);
+
+create index idx_booking_username
+    on booking (username);
+
+create index idx_booking_account
+    on booking (account_id, booking_id);
+
+create index idx_booking_route
+    on booking (route_id, status);
+
+alter table booking
+    add constraint fk_booking_account
+    foreign key (account_id)
+    references account (id);
@@ -0,0 +1,25 @@
+package com.example.urbanmobility;
+
+import com.example.urbanmobility.model.Account;
+import com.example.urbanmobility.repository.AccountRepository;
+import com.example.urbanmobility.service.AccountService;
+
+// Accounts that pass every validation, for tests that only need an owner for their bookings
+public final class TestAccounts {
+    private TestAccounts() {
+    }
+
+    public static Account create(AccountService accountService, String username) {
+        return accountService.createAccount(Account.builder()
+                .username(username)
+                .role("User")
+                .paymentInfo("3334 5566 3432 9090")
+                .isPaymentSet(true)
+                .phone("0722946563")
+                .build());
+    }
+
+    public static long idOf(AccountRepository accountRepository, String username) {
+        return accountRepository.findIdByUsername(username).orElseThrow();
+    }
+}
@@ -1,13 +1,28 @@
 package com.example.urbanmobility;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
 @SpringBootTest
 class UrbanMobilityApplicationTests {
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Test
     void contextLoads() {
     }
 
+    @Test
+    void connectionPool_Should_PublishUsageWaitAndTimeoutMetrics() {
+        for (String name : new String[]{"active", "idle", "pending", "timeout", "acquire", "usage"}) {
+            assertNotNull(meterRegistry.find("hikaricp.connections." + name).tag("pool", "urban-mobility").meter(),
+                    "hikaricp.connections." + name);
+        }
+    }
+
 }
@@ -0,0 +1,48 @@
+package com.example.urbanmobility.benchmark;
+
+import com.example.urbanmobility.validation.AccountValidator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Compares the char-loop validators with the regex checks they replaced.
+// Run with -prof gc: gc.alloc.rate.norm should be ~0 B/op for the validator benchmarks.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AccountValidatorBenchmark {
+    private final AccountValidator accountValidator = new AccountValidator();
+
+    private String phoneNumber;
+    private String cardNumber;
+
+    @Setup
+    public void setUp() {
+        // Built at runtime so the JIT cannot treat the inputs as constants
+        phoneNumber = new StringBuilder("0722946563").toString();
+        cardNumber = new StringBuilder("3334 5566 3432 9090").toString();
+    }
+
+    @Benchmark
+    public boolean phoneNumber_validator() {
+        return accountValidator.isValidPhoneNumber(phoneNumber);
+    }
+
+    @Benchmark
+    public boolean phoneNumber_regex() {
+        return phoneNumber.matches("[0-9]{10}");
+    }
+
+    @Benchmark
+    public boolean cardNumber_validator() {
+        return accountValidator.isValidCardNumber(cardNumber) && accountValidator.hasValidCardChecksum(cardNumber);
+    }
+
+    @Benchmark
+    public boolean cardNumber_regex() {
+        return cardNumber.matches("^[0-9 ]+$") && cardNumber.replaceAll(" ", "").matches("^[0-9]{16}$");
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.urbanmobility.benchmark;
+
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Compares POST /api/bookings inserting synchronously with the write-behind ingestion queue,
+// both answered on acceptance and held until the batch commits (?durable=true).
+// Run with: mvn -Ploadtest -DskipTests verify -Dloadtest.main=BookingIngestLoadTest
+public final class BookingIngestLoadTest {
+
+    private BookingIngestLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<HttpLoad.Result> results = new ArrayList<>();
+        try (ConfigurableApplicationContext context = HttpLoad.start("--app.bookings.ingest.enabled=false")) {
+            results.add(HttpLoad.measure("synchronous insert", HttpLoad.baseUri(context), HttpLoad.clients(),
+                    uri -> post(uri, "/api/bookings")));
+        }
+        try (ConfigurableApplicationContext context = HttpLoad.start("--app.bookings.ingest.enabled=true")) {
+            URI base = HttpLoad.baseUri(context);
+            results.add(HttpLoad.measure("write-behind accepted", base, HttpLoad.clients(),
+                    uri -> post(uri, "/api/bookings")));
+            results.add(HttpLoad.measure("write-behind durable", base, HttpLoad.clients(),
+                    uri -> post(uri, "/api/bookings?durable=true")));
+        }
+        HttpLoad.print(results);
+    }
+
+    private static HttpRequest post(URI base, String path) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String body = "{\"username\":\"load" + random.nextInt(HttpLoad.SEEDED_ACCOUNTS) + "\",\"routeId\":"
+                + (1 + random.nextInt(50)) + "}";
+        return HttpRequest.newBuilder(base.resolve(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+}
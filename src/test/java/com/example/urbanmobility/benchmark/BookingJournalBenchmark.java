@@ -0,0 +1,50 @@
+package com.example.urbanmobility.benchmark;
+
+import com.example.urbanmobility.repository.BookingRepository;
+import com.example.urbanmobility.service.BookingJournal;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// Replaying a 1,000,000-record journal (32MB over four 8MB segments) that is
+// already in the page cache; bytes per second is the journal size divided by the replay time.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookingJournalBenchmark {
+    private static final int RECORDS = 1_000_000;
+
+    private Path directory;
+    private BookingJournal journal;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("journal-benchmark");
+        journal = new BookingJournal(directory, DataSize.ofMegabytes(8), Mockito.mock(BookingRepository.class));
+        journal.open();
+        for (int i = 1; i <= RECORDS; i++) {
+            journal.append(BookingJournal.Op.CREATED, i, i % 1000 + 1, i % 5000, i);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public long replay_activeByRoute() {
+        long[] active = new long[1001];
+        journal.replay((bookingId, routeId, usernameHash, op, timestamp) -> active[routeId]++);
+        return active[1];
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.urbanmobility.benchmark;
+
+import com.example.urbanmobility.model.Booking;
+import com.example.urbanmobility.service.BookingService;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Compares the MVC booking reads with their WebFlux/R2DBC counterparts under /reactive,
+// served by the same application and database.
+// Run with: mvn -Ploadtest -DskipTests verify -Dloadtest.main=BookingStackLoadTest
+public final class BookingStackLoadTest {
+    private static final int SEEDED_BOOKINGS = 5_000;
+
+    private BookingStackLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int clients = HttpLoad.clients();
+        // A full-table stream per request is much heavier, so fewer clients run it
+        int streamClients = Math.max(1, clients / 20);
+        List<HttpLoad.Result> results = new ArrayList<>();
+        try (ConfigurableApplicationContext context = HttpLoad.start("--app.reactive.enabled=true")) {
+            seedBookings(context.getBean(BookingService.class));
+            URI base = HttpLoad.baseUri(context);
+
+            results.add(HttpLoad.measure("mvc page", base, clients, uri -> page(uri, "")));
+            results.add(HttpLoad.measure("webflux page", base, clients, uri -> page(uri, "/reactive")));
+            results.add(HttpLoad.measure("mvc stream", base, streamClients, uri -> stream(uri, "")));
+            results.add(HttpLoad.measure("webflux stream", base, streamClients, uri -> stream(uri, "/reactive")));
+        }
+        HttpLoad.print(results);
+    }
+
+    private static void seedBookings(BookingService bookingService) {
+        List<Booking> bookings = new ArrayList<>(BookingService.MAX_BATCH_SIZE);
+        for (int i = 0; i < SEEDED_BOOKINGS; i++) {
+            bookings.add(Booking.builder().username("load" + (i % HttpLoad.SEEDED_ACCOUNTS)).routeId(1 + i % 50).build());
+            if (bookings.size() == BookingService.MAX_BATCH_SIZE) {
+                bookingService.createBookings(bookings);
+                bookings = new ArrayList<>(BookingService.MAX_BATCH_SIZE);
+            }
+        }
+    }
+
+    private static HttpRequest page(URI base, String prefix) {
+        int after = ThreadLocalRandom.current().nextInt(SEEDED_BOOKINGS);
+        return HttpRequest.newBuilder(base.resolve(prefix + "/api/bookings?limit=50&after=" + after)).GET().build();
+    }
+
+    private static HttpRequest stream(URI base, String prefix) {
+        return HttpRequest.newBuilder(base.resolve(prefix + "/api/bookings/stream")).GET().build();
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.urbanmobility.benchmark;
+
+import com.example.urbanmobility.UrbanMobilityApplication;
+import com.example.urbanmobility.model.Account;
+import com.example.urbanmobility.service.AccountService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+// Closed-loop HTTP load generator shared by the load tests: each client sends its next
+// request as soon as the previous response has been read
+final class HttpLoad {
+    static final int SEEDED_ACCOUNTS = 200;
+
+    private HttpLoad() {
+    }
+
+    static int clients() {
+        return Integer.getInteger("loadtest.clients", 400);
+    }
+
+    static Duration warmup() {
+        return Duration.ofSeconds(Integer.getInteger("loadtest.warmup", 5));
+    }
+
+    static Duration duration() {
+        return Duration.ofSeconds(Integer.getInteger("loadtest.duration", 20));
+    }
+
+    // Arguments rather than default properties, so that they override application.properties
+    static ConfigurableApplicationContext start(String... args) {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        String[] defaults = {"--server.port=0", "--spring.jpa.show-sql=false", "--logging.level.root=WARN",
+                "--spring.main.banner-mode=off"};
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(UrbanMobilityApplication.class)
+                .run(Stream.concat(Arrays.stream(defaults), Arrays.stream(args)).toArray(String[]::new));
+        AccountService accountService = context.getBean(AccountService.class);
+        for (int i = 0; i < SEEDED_ACCOUNTS; i++) {
+            accountService.createAccount(Account.builder()
+                    .username("load" + i)
+                    .role("user")
+                    .paymentInfo("3334 5566 3432 9090")
+                    .phone("0722946563")
+                    .build());
+        }
+        return context;
+    }
+
+    static URI baseUri(ConfigurableApplicationContext context) {
+        return URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port"));
+    }
+
+    // Warms up, then measures one mode
+    static Result measure(String mode, URI base, int clients, Function<URI, HttpRequest> requests) throws Exception {
+        ExecutorService clientExecutor = Executors.newFixedThreadPool(16);
+        try {
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(clientExecutor)
+                    .build();
+            load(client, base, clients, warmup(), requests);
+            return load(client, base, clients, duration(), requests).withMode(mode);
+        } finally {
+            clientExecutor.shutdownNow();
+        }
+    }
+
+    static void print(List<Result> results) {
+        System.out.printf("%n%-28s %8s %12s %10s %10s %10s %8s%n",
+                "Mode", "Clients", "Requests/s", "p50 ms", "p99 ms", "max ms", "Errors");
+        for (Result result : results) {
+            System.out.printf("%-28s %8d %12.1f %10.2f %10.2f %10.2f %8d%n", result.mode(), result.clients(),
+                    result.throughput(), result.percentile(50), result.percentile(99), result.percentile(100),
+                    result.errors());
+        }
+    }
+
+    private static Result load(HttpClient client, URI base, int clients, Duration duration,
+                               Function<URI, HttpRequest> requests) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        ExecutorService workers = Executors.newFixedThreadPool(clients);
+        try {
+            List<Future<Samples>> futures = new ArrayList<>(clients);
+            for (int i = 0; i < clients; i++) {
+                futures.add(workers.submit(() -> {
+                    Samples samples = new Samples();
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        boolean ok = send(client, requests.apply(base));
+                        samples.add(System.nanoTime() - start, ok);
+                    }
+                    return samples;
+                }));
+            }
+            Samples all = new Samples();
+            for (Future<Samples> future : futures) {
+                all.addAll(future.get());
+            }
+            return all.toResult(clients, duration);
+        } finally {
+            workers.shutdown();
+        }
+    }
+
+    private static boolean send(HttpClient client, HttpRequest request) {
+        try {
+            int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            return status >= 200 && status < 300;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static final class Samples {
+        private long[] latencies = new long[1024];
+        private int count;
+        private long errors;
+
+        void add(long latencyNanos, boolean ok) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latencyNanos;
+            if (!ok) {
+                errors++;
+            }
+        }
+
+        void addAll(Samples other) {
+            for (int i = 0; i < other.count; i++) {
+                add(other.latencies[i], true);
+            }
+            errors += other.errors;
+        }
+
+        Result toResult(int clients, Duration duration) {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return new Result(null, clients, count / (double) duration.toSeconds(), sorted, errors);
+        }
+    }
+
+    record Result(String mode, int clients, double throughput, long[] sortedLatencies, long errors) {
+        Result withMode(String mode) {
+            return new Result(mode, clients, throughput, sortedLatencies, errors);
+        }
+
+        double percentile(int percentile) {
+            if (sortedLatencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100.0 * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(index, 0)] / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.urbanmobility.benchmark;
+
+import com.example.urbanmobility.model.Account;
+import com.example.urbanmobility.model.Booking;
+import com.example.urbanmobility.model.BookingStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// Cost of the JSON encoding every account and booking response goes through
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonSerializationBenchmark {
+    // Same defaults as the ObjectMapper Spring MVC uses
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private Account account;
+    private Booking booking;
+    private byte[] accountJson;
+    private byte[] bookingJson;
+
+    @Setup
+    public void setUp() throws IOException {
+        account = Account.builder()
+                .id(42L)
+                .username("Tom")
+                .role("User")
+                .paymentInfo("3334 5566 3432 9090")
+                .paymentHistory(4)
+                .isPaymentSet(true)
+                .phone("0722946563")
+                .activeBookings(3)
+                .build();
+        booking = Booking.builder()
+                .bookingId(42L)
+                .routeId(7)
+                .username("Tom")
+                .status(BookingStatus.ACTIVE)
+                .build();
+        accountJson = objectMapper.writeValueAsBytes(account);
+        bookingJson = objectMapper.writeValueAsBytes(booking);
+    }
+
+    @Benchmark
+    public byte[] account_serialize() throws IOException {
+        return objectMapper.writeValueAsBytes(account);
+    }
+
+    @Benchmark
+    public Account account_deserialize() throws IOException {
+        return objectMapper.readValue(accountJson, Account.class);
+    }
+
+    @Benchmark
+    public byte[] booking_serialize() throws IOException {
+        return objectMapper.writeValueAsBytes(booking);
+    }
+
+    @Benchmark
+    public Booking booking_deserialize() throws IOException {
+        return objectMapper.readValue(bookingJson, Booking.class);
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.urbanmobility.benchmark;
+
+import com.example.urbanmobility.UrbanMobilityApplication;
+import com.example.urbanmobility.model.Account;
+import com.example.urbanmobility.model.Booking;
+import com.example.urbanmobility.repository.AccountRepository;
+import com.example.urbanmobility.repository.BookingRepository;
+import com.example.urbanmobility.service.AccountService;
+import com.example.urbanmobility.service.BookingService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Service and repository hot paths against the in-memory H2 database, without the web layer
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PersistenceBenchmark {
+    private static final int SEEDED_ACCOUNTS = 1_000;
+    private static final int SEEDED_BOOKINGS_PER_ACCOUNT = 10;
+    private static final int BATCH = 100;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private ConfigurableApplicationContext context;
+    private AccountService accountService;
+    private BookingService bookingService;
+    private AccountRepository accountRepository;
+    private BookingRepository bookingRepository;
+    private long seededAccountId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Devtools would otherwise try to restart the context from the JMH worker thread
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        context = new SpringApplicationBuilder(UrbanMobilityApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.jpa.show-sql=false", "--logging.level.root=WARN", "--spring.main.banner-mode=off");
+        accountService = context.getBean(AccountService.class);
+        bookingService = context.getBean(BookingService.class);
+        accountRepository = context.getBean(AccountRepository.class);
+        bookingRepository = context.getBean(BookingRepository.class);
+
+        for (int i = 0; i < SEEDED_ACCOUNTS; i++) {
+            Account account = accountService.createAccount(newAccount("seed" + i));
+            List<Booking> bookings = new ArrayList<>(SEEDED_BOOKINGS_PER_ACCOUNT);
+            for (int j = 0; j < SEEDED_BOOKINGS_PER_ACCOUNT; j++) {
+                bookings.add(newBooking(account.getUsername()));
+            }
+            bookingService.createBookings(bookings);
+            seededAccountId = account.getId();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Account accountService_createAccount() {
+        return accountService.createAccount(newAccount("bench" + sequence.incrementAndGet()));
+    }
+
+    @Benchmark
+    public Booking bookingService_createBooking() {
+        return bookingService.createBooking(newBooking("seed" + (sequence.incrementAndGet() % SEEDED_ACCOUNTS)));
+    }
+
+    // Per booking, so it reads directly against createBooking; the batch goes out as JDBC batches of 50
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<Booking> bookingService_createBookings() {
+        String username = "seed" + (sequence.incrementAndGet() % SEEDED_ACCOUNTS);
+        List<Booking> bookings = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            bookings.add(newBooking(username));
+        }
+        return bookingService.createBookings(bookings);
+    }
+
+    @Benchmark
+    public Optional<Account> accountService_getAccountById() {
+        return accountService.getAccountById(seededAccountId);
+    }
+
+    @Benchmark
+    public Account accountRepository_findByUsername() {
+        return accountRepository.findByUsername("seed" + (sequence.incrementAndGet() % SEEDED_ACCOUNTS));
+    }
+
+    @Benchmark
+    public List<Booking> bookingRepository_findByUsername() {
+        return bookingRepository.findByUsername("seed" + (sequence.incrementAndGet() % SEEDED_ACCOUNTS));
+    }
+
+    private static Account newAccount(String username) {
+        return Account.builder()
+                .username(username)
+                .role("User")
+                .paymentInfo("3334 5566 3432 9090")
+                .isPaymentSet(true)
+                .phone("0722946563")
+                .build();
+    }
+
+    private static Booking newBooking(String username) {
+        return Booking.builder()
+                .routeId(1)
+                .username(username)
+                .build();
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.urbanmobility.benchmark;
+
+import com.example.urbanmobility.model.BookingStatus;
+import com.example.urbanmobility.model.Route;
+import com.example.urbanmobility.repository.BookingRepository;
+import com.example.urbanmobility.repository.RouteRepository;
+import com.example.urbanmobility.service.RouteCapacityService;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// Reserve + release on a single route from several threads at once, the worst case for
+// the per-route counter. The repositories are only touched when the route is first loaded.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RouteCapacityBenchmark {
+    private static final int ROUTE_ID = 1;
+
+    private RouteCapacityService routeCapacityService;
+
+    @Setup
+    public void setUp() {
+        RouteRepository routeRepository = Mockito.mock(RouteRepository.class);
+        BookingRepository bookingRepository = Mockito.mock(BookingRepository.class);
+        Mockito.when(routeRepository.findById(ROUTE_ID))
+                .thenReturn(Optional.of(Route.builder().routeId(ROUTE_ID).capacity(Integer.MAX_VALUE).build()));
+        Mockito.when(bookingRepository.countByRouteIdAndStatus(ROUTE_ID, BookingStatus.ACTIVE)).thenReturn(0L);
+        routeCapacityService = new RouteCapacityService(routeRepository, bookingRepository);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void reserveAndRelease_uncontended() {
+        routeCapacityService.reserve(ROUTE_ID);
+        routeCapacityService.release(ROUTE_ID);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void reserveAndRelease_contended() {
+        routeCapacityService.reserve(ROUTE_ID);
+        routeCapacityService.release(ROUTE_ID);
+    }
+}
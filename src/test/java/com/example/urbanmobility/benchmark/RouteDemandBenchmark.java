@@ -0,0 +1,59 @@
+package com.example.urbanmobility.benchmark;
+
+import com.example.urbanmobility.dto.RouteStats;
+import com.example.urbanmobility.repository.BookingRepository;
+import com.example.urbanmobility.service.RouteDemandService;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// Recording a booking on the create path, and answering the stats endpoints over 10,000 routes
+// that all have demand in the current window. No call reaches the repository.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RouteDemandBenchmark {
+    private static final int ROUTES = 10_000;
+
+    private RouteDemandService routeDemandService;
+    private int nextRoute;
+
+    @Setup
+    public void setUp() {
+        routeDemandService = new RouteDemandService(Mockito.mock(BookingRepository.class), Optional.empty(),
+                Duration.ofSeconds(60));
+        for (int routeId = 1; routeId <= ROUTES; routeId++) {
+            for (int i = 0; i < routeId % 17; i++) {
+                routeDemandService.booked(routeId);
+            }
+        }
+    }
+
+    @Benchmark
+    public void booked() {
+        nextRoute = nextRoute == ROUTES ? 1 : nextRoute + 1;
+        routeDemandService.booked(nextRoute);
+    }
+
+    @Benchmark
+    public List<RouteStats> topK_recent() {
+        return routeDemandService.getTopK(10, RouteDemandService.Ranking.RECENT);
+    }
+
+    @Benchmark
+    public List<RouteStats> topK_active() {
+        return routeDemandService.getTopK(10, RouteDemandService.Ranking.ACTIVE);
+    }
+
+    @Benchmark
+    public RouteStats stats_singleRoute() {
+        return routeDemandService.getStats(4242);
+    }
+}
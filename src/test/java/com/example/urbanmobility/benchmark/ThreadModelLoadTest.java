@@ -0,0 +1,51 @@
+package com.example.urbanmobility.benchmark;
+
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+// HTTP load against the application started in thread-per-request mode and then in
+// virtual-thread mode, printing throughput and latency percentiles for each.
+// Run with: mvn -Ploadtest -DskipTests verify  (the virtual-thread run needs JAVA_HOME on Java 21)
+// Tuning: -Dloadtest.clients=400 -Dloadtest.warmup=5 -Dloadtest.duration=20 (seconds)
+public final class ThreadModelLoadTest {
+
+    private ThreadModelLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<HttpLoad.Result> results = new ArrayList<>();
+        results.add(run("thread-per-request", false));
+        if (Runtime.version().feature() >= 21) {
+            results.add(run("virtual-threads", true));
+        } else {
+            System.out.println("Skipping the virtual-thread run: Java " + Runtime.version() + " has no virtual threads");
+        }
+        HttpLoad.print(results);
+    }
+
+    private static HttpLoad.Result run(String mode, boolean virtualThreads) throws Exception {
+        try (ConfigurableApplicationContext context =
+                     HttpLoad.start("--app.threads.virtual.enabled=" + virtualThreads)) {
+            return HttpLoad.measure(mode, HttpLoad.baseUri(context), HttpLoad.clients(), ThreadModelLoadTest::nextRequest);
+        }
+    }
+
+    // Mostly reads, with one in five requests creating a booking
+    private static HttpRequest nextRequest(URI base) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextInt(5) == 0) {
+            String body = "{\"username\":\"load" + random.nextInt(HttpLoad.SEEDED_ACCOUNTS) + "\",\"routeId\":"
+                    + (1 + random.nextInt(50)) + "}";
+            return HttpRequest.newBuilder(base.resolve("/api/bookings"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+        }
+        return HttpRequest.newBuilder(base.resolve("/api/bookings?limit=20&after=" + random.nextInt(1000))).GET().build();
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.urbanmobility.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrencyLimitFilterUnitTest {
+
+    //METHOD: doFilter
+
+    @Test
+    void doFilter_Should_PassRequest_When_PermitIsAvailable() throws Exception {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(1, Duration.ZERO);
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/bookings"), response, chain);
+
+        assertEquals(200, response.getStatus());
+        assertNotNull(chain.getRequest());
+    }
+
+    @Test
+    void doFilter_Should_Return503_When_AllPermitsAreInUse() throws Exception {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(1, Duration.ZERO);
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+
+        // The second request arrives while the first one still holds the only permit
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/bookings"), new MockHttpServletResponse(),
+                (request, response) -> filter.doFilter(new MockHttpServletRequest("GET", "/api/bookings"),
+                        rejected, new MockFilterChain()));
+
+        assertEquals(503, rejected.getStatus());
+        assertEquals("1", rejected.getHeader("Retry-After"));
+    }
+
+    @Test
+    void doFilter_Should_ReleasePermit_After_Request() throws Exception {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(1, Duration.ZERO);
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/bookings"), new MockHttpServletResponse(),
+                new MockFilterChain());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/bookings"), response, new MockFilterChain());
+
+        assertEquals(200, response.getStatus());
+    }
+}
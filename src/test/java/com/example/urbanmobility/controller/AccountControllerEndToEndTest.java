@@ -1,7 +1,12 @@
 package com.example.urbanmobility.controller;
 
+import com.example.urbanmobility.TestAccounts;
 import com.example.urbanmobility.model.Account;
+import com.example.urbanmobility.model.Booking;
+import com.example.urbanmobility.model.Route;
 import com.example.urbanmobility.service.AccountService;
+import com.example.urbanmobility.service.BookingService;
+import com.example.urbanmobility.service.RouteCapacityService;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -9,6 +14,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.web.servlet.MockMvc;
@@ -16,6 +22,7 @@ import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -30,6 +37,12 @@ class AccountControllerEndToEndTest {
     @Autowired
     private AccountService accountService;
 
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private RouteCapacityService routeCapacityService;
+
     private Account account;
 
 
@@ -44,7 +57,7 @@ class AccountControllerEndToEndTest {
                 .paymentHistory(4)
                 .isPaymentSet(true)
                 .phone("0722946563")
-                .activeBookings("3")
+                .activeBookings(3)
                 .build();
     }
 
@@ -73,7 +86,7 @@ class AccountControllerEndToEndTest {
                 .paymentHistory(4)
                 .isPaymentSet(true)
                 .phone("0722946563")
-                .activeBookings("3")
+                .activeBookings(3)
                 .build();
 
         // Converting the invalid Account object to JSON
@@ -87,6 +100,42 @@ class AccountControllerEndToEndTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    void createAccount_Should_ReturnConflict_OnDuplicateUsername() throws Exception {
+        accountService.createAccount(account);
+        account.setPhone("0722946564");
+        String accountJson = objectMapper.writeValueAsString(account);
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/account")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(accountJson))
+                .andExpect(status().isConflict());
+    }
+
+    //METHOD: importAccounts
+    @Test
+    void importAccounts_Should_ReturnReport_WithRejectedRows() throws Exception {
+        Account invalidAccount = Account.builder()
+                .username("Jerry")
+                .role("User")
+                .paymentInfo("3334 5566")
+                .isPaymentSet(true)
+                .phone("0722946563")
+                .build();
+        String ndjson = objectMapper.writeValueAsString(account) + "\n" + objectMapper.writeValueAsString(invalidAccount) + "\n";
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/account/import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.imported").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.rejected").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.errors[0].row").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.errors[0].username").value("Jerry"));
+    }
+
     //METHOD: deleteAccount
 
     @Test
@@ -100,6 +149,24 @@ class AccountControllerEndToEndTest {
                 .andExpect(MockMvcResultMatchers.content().string("Account was deleted successfully"));
     }
 
+    @Test
+    void deleteAccount_Should_DeleteItsBookings_AndFreeTheirSeats() throws Exception {
+        accountService.createAccount(account);
+        routeCapacityService.saveRoute(Route.builder().routeId(7).capacity(1).build());
+        long bookingId = bookingService.createBooking(Booking.builder().routeId(7).username("Tom").build()).getBookingId();
+        bookingService.createBooking(Booking.builder().routeId(8).username("Tom").build());
+
+        mockMvc.perform(MockMvcRequestBuilders.delete("/api/account/1"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.content().string("Account was deleted successfully"));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/bookings/" + bookingId))
+                .andExpect(status().isNotFound());
+        TestAccounts.create(accountService, "Jerry");
+        bookingService.createBooking(Booking.builder().routeId(7).username("Jerry").build());
+        assertEquals(1, routeCapacityService.getRoute(7).orElseThrow().getReserved());
+    }
+
 
 
     //METHOD: updateAccount
@@ -112,11 +179,11 @@ class AccountControllerEndToEndTest {
                 .id(1L)
                 .username("UpdatedUser")
                 .role("Admin")
-                .paymentInfo("1234 5678 9012 3456")
+                .paymentInfo("3334 5566 3432 9090")
                 .paymentHistory(5)
                 .isPaymentSet(true)
                 .phone("9876543210")
-                .activeBookings("5")
+                .activeBookings(5)
                 .build();
 
         String updatedAccountJson = objectMapper.writeValueAsString(updatedAccount);
@@ -138,6 +205,82 @@ class AccountControllerEndToEndTest {
 
     }
     @Test
+    void updateAccount_Should_ReturnTheStoredAccount_WithItsActiveBookings() throws Exception {
+        accountService.createAccount(account);
+        bookingService.createBooking(Booking.builder().routeId(1).username("Tom").build());
+        account.setRole("Admin");
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .put("/api/account/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(account)))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.role").value("Admin"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.activeBookings").value(1))
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"2\""));
+    }
+
+    @Test
+    void updateAccount_Should_ReturnConflict_OnRenameToATakenUsername() throws Exception {
+        accountService.createAccount(account);
+        TestAccounts.create(accountService, "Jerry");
+        account.setUsername("Jerry");
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .put("/api/account/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(account)))
+                .andExpect(status().isConflict());
+        mockMvc.perform(MockMvcRequestBuilders
+                        .patch("/api/account/1")
+                        .contentType("application/merge-patch+json")
+                        .content("{\"username\":\"Jerry\"}"))
+                .andExpect(status().isConflict());
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/account/1"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.username").value("Tom"));
+    }
+
+    @Test
+    void updateAccount_Should_ReturnBadRequest_OnInvalidPhone_LikePatch() throws Exception {
+        accountService.createAccount(account);
+        account.setPhone("12");
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .put("/api/account/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(account)))
+                .andExpect(status().isBadRequest());
+        assertEquals("0722946563", accountService.getAccountById(1L).orElseThrow().getPhone());
+    }
+    @Test
+    void updateAccount_Should_HonourIfMatch_AndRejectStaleETag() throws Exception {
+        accountService.createAccount(account);
+        String etag = mockMvc.perform(MockMvcRequestBuilders.get("/api/account/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"0\""))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        account.setRole("Admin");
+        String updatedAccountJson = objectMapper.writeValueAsString(account);
+        mockMvc.perform(MockMvcRequestBuilders
+                        .put("/api/account/1")
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(updatedAccountJson))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"1\""));
+
+        // A second writer still holding the old ETag must not overwrite the first
+        account.setRole("Supplier");
+        mockMvc.perform(MockMvcRequestBuilders
+                        .put("/api/account/1")
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(account)))
+                .andExpect(status().isPreconditionFailed());
+        assertEquals("Admin", accountService.getAccountById(1L).orElseThrow().getRole());
+    }
+    @Test
     void getAccountById_Should_ReturnAccount_WhenValidId() throws Exception {
         // Create a sample Account
         Account sampleAccount = Account.builder()
@@ -148,7 +291,7 @@ class AccountControllerEndToEndTest {
                 .paymentHistory(4)
                 .isPaymentSet(true)
                 .phone("0722946563")
-                .activeBookings("3")
+                .activeBookings(3)
                 .build();
 
         // Save the sample Account to the database or repository
@@ -169,6 +312,215 @@ class AccountControllerEndToEndTest {
 
 
 
-}
+    //METHOD: patchAccount
+    @Test
+    void patchAccount_Should_ChangeOnlySuppliedFields() throws Exception {
+        accountService.createAccount(account);
 
+        mockMvc.perform(MockMvcRequestBuilders
+                        .patch("/api/account/1")
+                        .header(HttpHeaders.IF_MATCH, "\"0\"")
+                        .contentType("application/merge-patch+json")
+                        .content("{\"role\":\"Admin\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"1\""))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.role").value("Admin"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.username").value("Tom"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.phone").value("0722946563"));
+    }
+    @Test
+    void patchAccount_Should_ReturnBadRequest_On_NullMember() throws Exception {
+        accountService.createAccount(account);
+
+        // Every column is required, so a merge patch cannot remove one
+        mockMvc.perform(MockMvcRequestBuilders
+                        .patch("/api/account/1")
+                        .contentType("application/merge-patch+json")
+                        .content("{\"phone\":null}"))
+                .andExpect(status().isBadRequest());
+    }
 
+    @Test
+    void getAccountById_Should_SendAWeakETag_AndVaryByAccept_ForEveryEncoding() throws Exception {
+        accountService.createAccount(account);
+        MediaType cbor = MediaType.valueOf("application/cbor");
+        String etag = mockMvc.perform(MockMvcRequestBuilders.get("/api/account/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertTrue(etag.startsWith("W/\""));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/account/1").accept(cbor))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentType(cbor))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/account/1").accept(cbor)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT));
+    }
+
+    @Test
+    void getAccountById_Should_ReturnNotModified_OnMatchingIfNoneMatch() throws Exception {
+        accountService.createAccount(account);
+        String etag = mockMvc.perform(MockMvcRequestBuilders.get("/api/account/1"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        String body = mockMvc.perform(MockMvcRequestBuilders.get("/api/account/1")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("", body);
+
+        Account changed = accountService.getAccountById(1L).orElseThrow();
+        changed.setRole("Admin");
+        accountService.updateAccount(1L, changed, null);
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/account/1")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.role").value("Admin"));
+    }
+
+    @Test
+    void getAccountById_Should_ReturnNewETag_AfterABookingChangesActiveBookings() throws Exception {
+        accountService.createAccount(account);
+        String etag = mockMvc.perform(MockMvcRequestBuilders.get("/api/account/1"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.activeBookings").value(0))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        bookingService.createBooking(Booking.builder().routeId(1).username("Tom").build());
+
+        String newEtag = mockMvc.perform(MockMvcRequestBuilders.get("/api/account/1")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.activeBookings").value(1))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(etag, newEtag);
+    }
+
+    //METHOD: getAllAccounts
+
+    @Test
+    void getAllAccounts_Should_ReturnSummaryProjection_ByDefault() throws Exception {
+        accountService.createAccount(account);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/account"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].id").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].username").value("Tom"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].role").value("User"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].paymentInfo").doesNotExist());
+    }
+
+    @Test
+    void getAllAccounts_Should_ReturnOnlySelectedFields() throws Exception {
+        accountService.createAccount(account);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/account?fields=username,phone"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].id").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].username").value("Tom"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].phone").value("0722946563"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].role").doesNotExist());
+    }
+
+    @Test
+    void getAllAccounts_Should_ReturnNotModified_UntilThePageChanges() throws Exception {
+        accountService.createAccount(account);
+        String etag = mockMvc.perform(MockMvcRequestBuilders.get("/api/account?fields=username,phone"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/account?fields=username,phone")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        // Another projection of the same rows is another representation
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/account")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+
+        accountService.createAccount(Account.builder()
+                .username("Ana")
+                .role("User")
+                .paymentInfo("3334 5566 3432 9090")
+                .phone("0722946564")
+                .build());
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/account?fields=username,phone")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].username").value("Ana"));
+    }
+
+    @Test
+    void getAllAccounts_Should_ReturnBadRequest_OnUnknownField() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/account?fields=password"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void streamAllAccounts_Should_WriteOneAccountPerLine() throws Exception {
+        accountService.createAccount(account);
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/api/account/stream?fields=username"))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals("{\"id\":1,\"username\":\"Tom\"}\n", body);
+    }
+
+    //METHOD: getAccountBookings
+
+    @Test
+    void getAccountBookings_Should_PageThroughOnlyTheAccountsBookings() throws Exception {
+        accountService.createAccount(account);
+        accountService.createAccount(Account.builder()
+                .username("Ana")
+                .role("User")
+                .paymentInfo("3334 5566 3432 9090")
+                .phone("0722946564")
+                .build());
+        bookingService.createBooking(Booking.builder().routeId(1).username("Tom").build());
+        bookingService.createBooking(Booking.builder().routeId(1).username("Ana").build());
+        bookingService.createBooking(Booking.builder().routeId(2).username("Tom").build());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/account/1/bookings?limit=1"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].bookingId").value(1))
+                .andExpect(header().string(HttpHeaders.LINK,
+                        "<http://localhost/api/account/1/bookings?after=1&limit=1>; rel=\"next\""));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/account/1/bookings?after=1&limit=10"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].bookingId").value(3))
+                .andExpect(header().doesNotExist(HttpHeaders.LINK));
+    }
+
+    @Test
+    void getAccountBookings_Should_ReturnCountOnly_When_Requested() throws Exception {
+        accountService.createAccount(account);
+        bookingService.createBooking(Booking.builder().routeId(1).username("Tom").build());
+        bookingService.createBooking(Booking.builder().routeId(2).username("Tom").build());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/account/1/bookings?count=true"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.count").value(2));
+    }
+
+    @Test
+    void getAccountBookings_Should_ReturnNotFound_When_AccountDoesNotExist() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/account/42/bookings"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/account/42/bookings?count=true"))
+                .andExpect(status().isNotFound());
+    }
+}
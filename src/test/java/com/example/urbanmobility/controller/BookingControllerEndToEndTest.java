@@ -1,21 +1,36 @@
 package com.example.urbanmobility.controller;
 
+import com.example.urbanmobility.TestAccounts;
+import com.example.urbanmobility.dto.AccountPatch;
+import com.example.urbanmobility.dto.BookingPatch;
 import com.example.urbanmobility.model.Booking;
+import com.example.urbanmobility.model.BookingStatus;
+import com.example.urbanmobility.repository.AccountRepository;
+import com.example.urbanmobility.service.AccountService;
 import com.example.urbanmobility.service.BookingService;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 
@@ -30,6 +45,12 @@ class BookingControllerEndToEndTest {
     @Autowired
     private BookingService bookingService;
 
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -38,6 +59,11 @@ class BookingControllerEndToEndTest {
 
     @BeforeEach
     public void setup() {
+        // Bookings belong to accounts, so every username used below needs one
+        TestAccounts.create(accountService, "testUser");
+        TestAccounts.create(accountService, "anotherTestUser");
+        TestAccounts.create(accountService, "updatedUser");
+
         validBooking = new Booking();
         validBooking.setUsername("testUser");
         validBooking.setRouteId(1);
@@ -59,6 +85,45 @@ class BookingControllerEndToEndTest {
                 .andExpect(jsonPath("$.routeId").value(1));
     }
     @Test
+    public void createBooking_Should_ReplayOriginalResponse_OnRetryWithSameIdempotencyKey() throws Exception {
+        String bookingJson = objectMapper.writeValueAsString(validBooking);
+
+        String first = mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/bookings")
+                        .header("Idempotency-Key", "retry-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(bookingJson))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        String retry = mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/bookings")
+                        .header("Idempotency-Key", "retry-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(bookingJson))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals(first, retry);
+        assertEquals(1, bookingService.getBookings(0, 10).size());
+    }
+    @Test
+    public void createBooking_Should_ReturnUnprocessable_OnIdempotencyKeyReuse() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/bookings")
+                        .header("Idempotency-Key", "retry-2")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(validBooking)))
+                .andExpect(status().isCreated());
+
+        validBooking.setRouteId(2);
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/bookings")
+                        .header("Idempotency-Key", "retry-2")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(validBooking)))
+                .andExpect(status().isUnprocessableEntity());
+    }
+    @Test
     public void createBooking_Should_ReturnBadRequest_OnNullBooking() throws Exception {
         // Performing an HTTP POST request with an empty body
         mockMvc.perform(MockMvcRequestBuilders
@@ -98,6 +163,63 @@ class BookingControllerEndToEndTest {
                 .andExpect(status().isBadRequest());
     }
 
+    //METHOD: createBookings
+    @Test
+    public void createBookings_Should_ReturnCreated_AndUpdateActiveBookings() throws Exception {
+        Booking secondBooking = new Booking();
+        secondBooking.setUsername("anotherTestUser");
+        secondBooking.setRouteId(2);
+        String batchJson = objectMapper.writeValueAsString(List.of(validBooking, validBooking, secondBooking));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/bookings/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(batchJson))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[2].username").value("anotherTestUser"));
+
+        assertEquals(2, accountService.getAccountById(TestAccounts.idOf(accountRepository, "testUser")).orElseThrow().getActiveBookings());
+        assertEquals(1, accountService.getAccountById(TestAccounts.idOf(accountRepository, "anotherTestUser")).orElseThrow().getActiveBookings());
+    }
+
+    @Test
+    public void createBookings_Should_AcceptAndReturnCbor() throws Exception {
+        ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+        MediaType cbor = MediaType.valueOf("application/cbor");
+
+        byte[] body = mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/bookings/batch")
+                        .contentType(cbor)
+                        .accept(cbor)
+                        .content(cborMapper.writeValueAsBytes(List.of(validBooking, validBooking))))
+                .andExpect(status().isCreated())
+                .andExpect(content().contentType(cbor))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        List<Booking> saved = List.of(cborMapper.readValue(body, Booking[].class));
+        assertEquals(2, saved.size());
+        assertEquals("testUser", saved.get(1).getUsername());
+        assertEquals(2, accountService.getAccountById(TestAccounts.idOf(accountRepository, "testUser")).orElseThrow().getActiveBookings());
+    }
+
+    @Test
+    public void createBookings_Should_ReturnBadRequest_AndSaveNothing_OnInvalidBooking() throws Exception {
+        Booking invalidBooking = new Booking();
+        invalidBooking.setUsername("testUser");
+        invalidBooking.setRouteId(-1);
+        String batchJson = objectMapper.writeValueAsString(List.of(validBooking, invalidBooking));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/bookings/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(batchJson))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/bookings"))
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
     //METHOD: deleteBooking
     @Test
     public void deleteBooking_Should_ReturnNoContent_AfterDeletingBooking() throws Exception {
@@ -178,6 +300,45 @@ class BookingControllerEndToEndTest {
                 .andExpect(jsonPath("$.username").value("updatedUser"));
     }
 
+    @Test
+    public void updateBooking_Should_HonourIfMatch_AndRejectStaleETag() throws Exception {
+        Booking created = bookingService.createBooking(validBooking);
+        String etag = mockMvc.perform(MockMvcRequestBuilders.get("/api/bookings/" + created.getBookingId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"0\""))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        validBooking.setUsername("updatedUser");
+        String updatedBookingJson = objectMapper.writeValueAsString(validBooking);
+        mockMvc.perform(MockMvcRequestBuilders
+                        .put("/api/bookings/" + created.getBookingId())
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(updatedBookingJson))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"1\""));
+
+        // A second writer still holding the old ETag must not overwrite the first
+        mockMvc.perform(MockMvcRequestBuilders
+                        .put("/api/bookings/" + created.getBookingId())
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(updatedBookingJson))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    public void updateBooking_Should_ReturnBadRequest_OnInvalidRouteId() throws Exception {
+        Booking created = bookingService.createBooking(validBooking);
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .put("/api/bookings/" + created.getBookingId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"testUser\",\"routeId\":-5}"))
+                .andExpect(status().isBadRequest());
+        assertEquals(created.getRouteId(), bookingService.getBookingById(created.getBookingId()).orElseThrow().getRouteId());
+    }
+
     @Test
     public void updateBooking_Should_ReturnNotFound_OnNonExistingBooking() throws Exception {
         Long nonExistingBookingId = 99999L;
@@ -213,6 +374,66 @@ class BookingControllerEndToEndTest {
                 .andExpect(status().isNotFound());
     }
 
+    //METHOD: patchBooking
+    @Test
+    public void patchBooking_Should_ChangeOnlyStatus() throws Exception {
+        Booking created = bookingService.createBooking(validBooking);
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .patch("/api/bookings/" + created.getBookingId())
+                        .contentType("application/merge-patch+json")
+                        .content("{\"status\":\"CANCELLED\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"1\""))
+                .andExpect(jsonPath("$.status").value("CANCELLED"))
+                .andExpect(jsonPath("$.username").value(validBooking.getUsername()))
+                .andExpect(jsonPath("$.routeId").value(validBooking.getRouteId()));
+    }
+    @Test
+    public void patchBooking_Should_ReturnNotFound_OnNonExistingBooking() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders
+                        .patch("/api/bookings/99999")
+                        .contentType("application/merge-patch+json")
+                        .content("{\"status\":\"CANCELLED\"}"))
+                .andExpect(status().isNotFound());
+    }
+
+    //METHOD: getBookingById
+
+    @Test
+    public void getBookingById_Should_ReturnNotModified_UntilTheBookingChanges() throws Exception {
+        long bookingId = bookingService.createBooking(validBooking).getBookingId();
+        String etag = mockMvc.perform(MockMvcRequestBuilders.get("/api/bookings/" + bookingId))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/bookings/" + bookingId)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        bookingService.patchBooking(bookingId, new BookingPatch(null, null, BookingStatus.CANCELLED), null);
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/bookings/" + bookingId)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("CANCELLED"));
+    }
+
+    @Test
+    public void getBookingById_Should_ReturnNewETag_AfterTheAccountIsRenamed() throws Exception {
+        long bookingId = bookingService.createBooking(validBooking).getBookingId();
+        String etag = mockMvc.perform(MockMvcRequestBuilders.get("/api/bookings/" + bookingId))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        accountService.patchAccount(TestAccounts.idOf(accountRepository, "testUser"), new AccountPatch("renamedUser", null, null, null, null, null), null);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/bookings/" + bookingId)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.username").value("renamedUser"));
+    }
+
     //METHOD: getAllBookings
 
     @Test
@@ -309,4 +530,144 @@ class BookingControllerEndToEndTest {
 
 
 
+    @Test
+    public void getAllBookings_Should_ReturnNextPageLink_When_PageIsFull() throws Exception {
+        String bookingJson = objectMapper.writeValueAsString(validBooking);
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(MockMvcRequestBuilders
+                            .post("/api/bookings")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(bookingJson))
+                    .andExpect(status().isCreated());
+        }
+
+        // First page holds two bookings and links to the rest
+        MvcResult firstPage = mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/bookings?limit=2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(header().string("Link", containsString("after=2")))
+                .andReturn();
+
+        JsonNode page = objectMapper.readTree(firstPage.getResponse().getContentAsString());
+        long lastBookingId = page.get(1).get("bookingId").asLong();
+
+        // Second page resumes after the last id and has no next link
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/bookings?limit=2&after=" + lastBookingId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(header().doesNotExist("Link"));
+    }
+
+    @Test
+    public void getAllBookings_Should_ReturnSmile_OnlyWhenAsked() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            bookingService.createBooking(Booking.builder().username("testUser").routeId(1).build());
+        }
+        MediaType smile = MediaType.valueOf("application/x-jackson-smile");
+
+        byte[] body = mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/bookings?limit=2")
+                        .accept(smile))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(smile))
+                .andExpect(header().exists("Link"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        List<Map<?, ?>> page = List.of(new ObjectMapper(new SmileFactory()).readValue(body, Map[].class));
+        assertEquals(2, page.size());
+        assertEquals("ACTIVE", page.get(0).get("status"));
+
+        // Clients that accept anything keep getting JSON
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/bookings")
+                        .accept(MediaType.ALL))
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$", hasSize(3)));
+    }
+
+    @Test
+    public void getAllBookings_Should_ReturnNotModified_UntilABookingOnThePageChanges() throws Exception {
+        long bookingId = bookingService.createBooking(validBooking).getBookingId();
+        String etag = mockMvc.perform(MockMvcRequestBuilders.get("/api/bookings"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/bookings")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        bookingService.patchBooking(bookingId, new BookingPatch(null, null, BookingStatus.COMPLETED), null);
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/bookings")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("COMPLETED"));
+    }
+
+    @Test
+    public void getAllBookings_Should_ReturnBadRequest_OnLimitOutOfRange() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/bookings?limit=0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    //METHOD: streamAllBookings
+
+    @Test
+    public void streamAllBookings_Should_WriteOneBookingPerLine() throws Exception {
+        String bookingJson = objectMapper.writeValueAsString(validBooking);
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(MockMvcRequestBuilders
+                            .post("/api/bookings")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(bookingJson))
+                    .andExpect(status().isCreated());
+        }
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders
+                        .get("/api/bookings/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("testUser", objectMapper.readTree(lines[0]).get("username").asText());
+    }
+
+    @Test
+    public void createBooking_Should_ReturnNotFound_OnUnknownAccount() throws Exception {
+        validBooking.setUsername("noSuchUser");
+        String bookingJson = objectMapper.writeValueAsString(validBooking);
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/bookings")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(bookingJson))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void createBooking_Should_IncrementAndDelete_Should_DecrementActiveBookings() throws Exception {
+        String bookingJson = objectMapper.writeValueAsString(validBooking);
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/bookings")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(bookingJson))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.status").value("ACTIVE"))
+                .andReturn();
+        long accountId = TestAccounts.idOf(accountRepository, "testUser");
+        assertEquals(1, accountService.getAccountById(accountId).orElseThrow().getActiveBookings());
+
+        long bookingId = objectMapper.readTree(result.getResponse().getContentAsString()).get("bookingId").asLong();
+        mockMvc.perform(MockMvcRequestBuilders.delete("/api/bookings/" + bookingId))
+                .andExpect(status().isNoContent());
+        assertEquals(0, accountService.getAccountById(accountId).orElseThrow().getActiveBookings());
+    }
 }
\ No newline at end of file
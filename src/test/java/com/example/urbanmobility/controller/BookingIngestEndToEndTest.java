@@ -0,0 +1,86 @@
+package com.example.urbanmobility.controller;
+
+import com.example.urbanmobility.model.Account;
+import com.example.urbanmobility.model.Booking;
+import com.example.urbanmobility.service.AccountService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "app.bookings.ingest.enabled=true")
+@AutoConfigureMockMvc
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class BookingIngestEndToEndTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private String bookingJson;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        accountService.createAccount(Account.builder()
+                .username("testUser")
+                .role("User")
+                .paymentInfo("3334 5566 3432 9090")
+                .isPaymentSet(true)
+                .phone("0722946563")
+                .build());
+        bookingJson = objectMapper.writeValueAsString(Booking.builder().username("testUser").routeId(1).build());
+    }
+
+    //METHOD: createBooking
+    @Test
+    public void createBooking_Should_ReturnAccepted_WithAssignedId() throws Exception {
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/bookings")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(bookingJson))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.bookingId").isNumber())
+                .andExpect(jsonPath("$.status").value("ACTIVE"))
+                .andReturn();
+
+        long bookingId = objectMapper.readTree(result.getResponse().getContentAsString()).get("bookingId").asLong();
+        assertTrue(result.getResponse().getHeader(HttpHeaders.LOCATION).endsWith("/api/bookings/" + bookingId));
+    }
+
+    //METHOD: createBookingDurably
+    @Test
+    public void createBookingDurably_Should_ReturnCreated_OnceCommitted() throws Exception {
+        MvcResult pending = mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/bookings?durable=true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(bookingJson))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        MvcResult committed = mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.username").value("testUser"))
+                .andReturn();
+
+        long bookingId = objectMapper.readTree(committed.getResponse().getContentAsString()).get("bookingId").asLong();
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/bookings/" + bookingId))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"0\""));
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.urbanmobility.controller;
+
+import com.example.urbanmobility.TestAccounts;
+import com.example.urbanmobility.model.Booking;
+import com.example.urbanmobility.service.AccountService;
+import com.example.urbanmobility.service.BookingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Compression is done by Tomcat, so these requests go to a running server rather than MockMvc
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class CompressionEndToEndTest {
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    private long bookingId;
+
+    @BeforeEach
+    public void setup() {
+        TestAccounts.create(accountService, "testUser");
+        List<Booking> bookings = new ArrayList<>();
+        for (int i = 1; i <= 100; i++) {
+            bookings.add(Booking.builder().username("testUser").routeId(i).build());
+        }
+        bookingId = bookingService.createBookings(bookings).get(0).getBookingId();
+    }
+
+    private HttpResponse<byte[]> get(String path, String ifNoneMatch) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        if (ifNoneMatch != null) {
+            request.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    //METHOD: getAllBookings
+
+    @Test
+    public void getAllBookings_Should_GzipLargePages_AndStillAnswerIfNoneMatch() throws Exception {
+        HttpResponse<byte[]> page = get("/api/bookings", null);
+
+        assertEquals(200, page.statusCode());
+        assertEquals(Optional.of("gzip"), page.headers().firstValue(HttpHeaders.CONTENT_ENCODING));
+        // Tomcat compresses only responses whose ETag is weak
+        String etag = page.headers().firstValue(HttpHeaders.ETAG).orElseThrow();
+        assertTrue(etag.startsWith("W/\""));
+
+        HttpResponse<byte[]> unchanged = get("/api/bookings", etag);
+        assertEquals(304, unchanged.statusCode());
+        assertEquals(0, unchanged.body().length);
+    }
+
+    //METHOD: getBookingById
+
+    @Test
+    public void getBookingById_Should_KeepItsETag_WhenCompressed() throws Exception {
+        HttpResponse<byte[]> booking = get("/api/bookings/" + bookingId, null);
+
+        assertEquals(200, booking.statusCode());
+        // Jackson streams without a Content-Length, so Tomcat's minimum size does not hold small bodies back
+        assertEquals(Optional.of("gzip"), booking.headers().firstValue(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(Optional.of("W/\"0\""), booking.headers().firstValue(HttpHeaders.ETAG));
+        assertEquals(304, get("/api/bookings/" + bookingId, "W/\"0\"").statusCode());
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.urbanmobility.controller;
+
+import com.example.urbanmobility.model.Account;
+import com.example.urbanmobility.model.Booking;
+import com.example.urbanmobility.service.AccountService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Tests turn metric export off by default; the Prometheus registry is needed here
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class MetricsEndToEndTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    //METHOD: prometheus
+    @Test
+    public void prometheus_Should_ExposeServiceRepositoryAndExceptionMetrics() throws Exception {
+        accountService.createAccount(Account.builder()
+                .username("testUser")
+                .role("User")
+                .paymentInfo("3334 5566 3432 9090")
+                .phone("0722946563")
+                .build());
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/api/bookings")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Booking.builder().username("testUser").routeId(1).build())))
+                .andExpect(status().isCreated());
+        mockMvc.perform(MockMvcRequestBuilders.delete("/api/bookings/999"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/account/42/bookings"))
+                .andExpect(status().isNotFound());
+
+        String body = mockMvc.perform(MockMvcRequestBuilders.get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertTrue(body.contains("urban_accounts_create_seconds_count{"));
+        assertTrue(body.contains("urban_bookings_create_seconds{application=\"urban-mobility\""));
+        assertTrue(body.contains("urban_bookings_delete_seconds_bucket{"));
+        assertTrue(body.contains("spring_data_repository_invocations_seconds_bucket{"));
+        assertTrue(body.contains("repository=\"BookingRepository\""));
+        assertTrue(body.contains("urban_exceptions_total{application=\"urban-mobility\",type=\"ResourceNotFoundException\",} 1.0"));
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.urbanmobility.controller;
+
+import com.example.urbanmobility.dto.BookingView;
+import com.example.urbanmobility.TestAccounts;
+import com.example.urbanmobility.model.Booking;
+import com.example.urbanmobility.model.BookingStatus;
+import com.example.urbanmobility.service.AccountService;
+import com.example.urbanmobility.service.BookingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "app.reactive.enabled=true")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class ReactiveBookingEndToEndTest {
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    private List<Booking> bookings;
+
+    @BeforeEach
+    public void setup() {
+        TestAccounts.create(accountService, "testUser");
+        TestAccounts.create(accountService, "anotherTestUser");
+
+        List<Booking> newBookings = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            newBookings.add(Booking.builder().username(i % 2 == 0 ? "anotherTestUser" : "testUser").routeId(i).build());
+        }
+        bookings = bookingService.createBookings(newBookings);
+    }
+
+    //METHOD: getBookings
+
+    @Test
+    public void getBookings_Should_ReturnPage_WithNextLink() {
+        webTestClient.get().uri("/reactive/api/bookings?limit=2")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().value(HttpHeaders.LINK, containsString("after=" + bookings.get(1).getBookingId()))
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].bookingId").isEqualTo(bookings.get(0).getBookingId())
+                .jsonPath("$[0].status").isEqualTo("ACTIVE");
+    }
+
+    @Test
+    public void getBookings_Should_ReturnBadRequest_OnMalformedNumbers() {
+        webTestClient.get().uri("/reactive/api/bookings?limit=ten")
+                .exchange()
+                .expectStatus().isBadRequest();
+        webTestClient.get().uri("/reactive/api/bookings?after=abc")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    public void getBookings_Should_ReturnBadRequest_OnLimitOutOfRange() {
+        webTestClient.get().uri("/reactive/api/bookings?limit=0")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    //METHOD: getBookingById
+
+    @Test
+    public void getBookingById_Should_ReturnBooking_OrNotFound() {
+        webTestClient.get().uri("/reactive/api/bookings/{id}", bookings.get(2).getBookingId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.routeId").isEqualTo(3)
+                .jsonPath("$.username").isEqualTo("testUser");
+
+        webTestClient.get().uri("/reactive/api/bookings/{id}", 999_999)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    public void getBookingById_Should_ReturnBadRequest_OnNonNumericId() {
+        webTestClient.get().uri("/reactive/api/bookings/abc")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    //METHOD: getBookingsByUsername
+
+    @Test
+    public void getBookingsByUsername_Should_ReturnOnlyThatUsersBookings() {
+        webTestClient.get().uri("/reactive/api/bookings/user/anotherTestUser")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(BookingView.class)
+                .hasSize(2);
+    }
+
+    //METHOD: streamBookings
+
+    @Test
+    public void streamBookings_Should_StreamEveryBooking_AsNdjson() {
+        Flux<BookingView> stream = webTestClient.get().uri("/reactive/api/bookings/stream")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(BookingView.class)
+                .getResponseBody();
+
+        // Requests one row at a time, as a slow consumer would
+        StepVerifier.create(stream, 1)
+                .assertNext(booking -> assertEquals(bookings.get(0).getBookingId(), booking.bookingId()))
+                .thenRequest(4)
+                .expectNextCount(3)
+                .assertNext(booking -> assertEquals(BookingStatus.ACTIVE, booking.status()))
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.urbanmobility.controller;
+
+import com.example.urbanmobility.model.Account;
+import com.example.urbanmobility.service.AccountService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class RouteControllerEndToEndTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    public void setup() {
+        accountService.createAccount(Account.builder()
+                .username("testUser")
+                .role("user")
+                .paymentInfo("3334 5566 3432 9090")
+                .phone("0722946563")
+                .build());
+    }
+
+    //METHOD: saveRoute
+
+    @Test
+    public void saveRoute_Should_ReturnRoute_WithCapacity() throws Exception {
+        saveRoute(5, 2);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/routes/5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.capacity").value(2))
+                .andExpect(jsonPath("$.reserved").value(0));
+    }
+
+    @Test
+    public void saveRoute_Should_ReturnBadRequest_OnNegativeCapacity() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/routes/5")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"capacity\":-1}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    //METHOD: getRoute
+
+    @Test
+    public void getRoute_Should_ReturnNotFound_OnUnknownRoute() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/routes/404"))
+                .andExpect(status().isNotFound());
+    }
+
+    // Booking against route capacity
+
+    @Test
+    public void createBooking_Should_ReturnConflict_When_RouteIsFull() throws Exception {
+        saveRoute(5, 1);
+        long bookingId = bookingIdOf(createBooking(5).andExpect(status().isCreated()).andReturn());
+
+        createBooking(5).andExpect(status().isConflict());
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/routes/5"))
+                .andExpect(jsonPath("$.reserved").value(1));
+
+        // Deleting the booking gives its seat back
+        mockMvc.perform(MockMvcRequestBuilders.delete("/api/bookings/" + bookingId))
+                .andExpect(status().isNoContent());
+        createBooking(5).andExpect(status().isCreated());
+    }
+
+    @Test
+    public void createBooking_Should_AllowAnyNumberOfBookings_OnUnregisteredRoute() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            createBooking(9).andExpect(status().isCreated());
+        }
+    }
+
+    @Test
+    public void createBookings_Should_ReturnSeats_When_BatchIsRejected() throws Exception {
+        saveRoute(5, 2);
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/bookings/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"username\":\"testUser\",\"routeId\":5},"
+                                + "{\"username\":\"testUser\",\"routeId\":5},"
+                                + "{\"username\":\"testUser\",\"routeId\":5}]"))
+                .andExpect(status().isConflict());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/routes/5"))
+                .andExpect(jsonPath("$.reserved").value(0));
+        createBooking(5).andExpect(status().isCreated());
+        createBooking(5).andExpect(status().isCreated());
+    }
+
+    //METHOD: getRouteStats
+
+    @Test
+    public void getRouteStats_Should_FollowCommittedBookingsOnly() throws Exception {
+        saveRoute(5, 2);
+        long bookingId = bookingIdOf(createBooking(5).andExpect(status().isCreated()).andReturn());
+        createBooking(5).andExpect(status().isCreated());
+        // Rejected by capacity; its rolled back write must not be counted
+        createBooking(5).andExpect(status().isConflict());
+        mockMvc.perform(MockMvcRequestBuilders.delete("/api/bookings/" + bookingId))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/routes/5/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.activeBookings").value(1))
+                .andExpect(jsonPath("$.recentBookings").value(2))
+                .andExpect(jsonPath("$.bookingsPerMinute").value(2.0));
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/routes/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].routeId").value(5));
+    }
+
+    //METHOD: getTopRoutes
+
+    @Test
+    public void getTopRoutes_Should_RankRoutesByRecentBookings() throws Exception {
+        for (int routeId : new int[]{3, 7, 7, 7, 4, 4}) {
+            createBooking(routeId).andExpect(status().isCreated());
+        }
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/routes/top-k?k=2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].routeId").value(7))
+                .andExpect(jsonPath("$[0].recentBookings").value(3))
+                .andExpect(jsonPath("$[1].routeId").value(4));
+    }
+
+    @Test
+    public void getTopRoutes_Should_ReturnBadRequest_OnInvalidArguments() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/routes/top-k?k=0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/routes/top-k?by=popular"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private void saveRoute(int routeId, int capacity) throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/routes/" + routeId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"capacity\":" + capacity + "}"))
+                .andExpect(status().isOk());
+    }
+
+    private ResultActions createBooking(int routeId) throws Exception {
+        return mockMvc.perform(MockMvcRequestBuilders.post("/api/bookings")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"testUser\",\"routeId\":" + routeId + "}"));
+    }
+
+    private long bookingIdOf(MvcResult result) throws Exception {
+        return objectMapper.readTree(result.getResponse().getContentAsString()).get("bookingId").asLong();
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.urbanmobility.service;
+
+import com.example.urbanmobility.dto.AccountImportReport;
+import com.example.urbanmobility.model.Account;
+import com.example.urbanmobility.repository.AccountRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class AccountImportServiceIntegrationTest {
+    @Autowired
+    private AccountImportService accountImportService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    //METHOD: importAccounts
+
+    @Test
+    void importAccounts_Should_ImportValidRows_And_ReportRejectedRows() throws IOException {
+        // An account that already exists before the import
+        accountService.createAccount(Account.builder()
+                .username("Tom")
+                .role("User")
+                .paymentInfo("3334 5566 3432 9090")
+                .isPaymentSet(true)
+                .phone("0722946563")
+                .build());
+
+        String ndjson = row("Anna", "0722946564") + "\n"
+                + row("Tom", "0722946565") + "\n"          // row 2: exists in the table
+                + row("Bert", "12345") + "\n"              // row 3: invalid phone
+                + "{not json\n"                            // row 4: malformed
+                + "\n"                                     // row 5: blank, skipped
+                + row("Anna", "0722946566") + "\n"         // row 6: duplicate within the file
+                + row("Cleo", "0722946567") + "\n";
+
+        AccountImportReport report = accountImportService.importAccounts(stream(ndjson));
+
+        assertEquals(2, report.imported());
+        assertEquals(4, report.rejected());
+        assertEquals(2, report.errors().get(0).row());
+        assertEquals("Tom", report.errors().get(0).username());
+        assertEquals("Invalid phone number. Please enter a correct phone number.", report.errors().get(1).error());
+        assertEquals(4, report.errors().get(2).row());
+        assertEquals(6, report.errors().get(3).row());
+        assertNotNull(accountRepository.findByUsername("Anna"));
+        assertNotNull(accountRepository.findByUsername("Cleo"));
+        assertNull(accountRepository.findByUsername("Bert"));
+    }
+
+    @Test
+    void importAccounts_Should_ImportRowsAcrossSeveralChunks() throws IOException {
+        int rows = AccountImportService.CHUNK_SIZE * 2 + 7;
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < rows; i++) {
+            ndjson.append(row("user" + i, "0722946563")).append('\n');
+        }
+
+        AccountImportReport report = accountImportService.importAccounts(stream(ndjson.toString()));
+
+        assertEquals(rows, report.imported());
+        assertEquals(0, report.rejected());
+        assertEquals(rows, accountRepository.count());
+    }
+
+    private static String row(String username, String phone) {
+        return "{\"username\":\"" + username + "\",\"role\":\"User\",\"phone\":\"" + phone
+                + "\",\"paymentInfo\":\"3334 5566 3432 9090\",\"paymentHistory\":0,\"paymentSet\":true}";
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -10,6 +10,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
 import org.springframework.test.annotation.DirtiesContext;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -22,6 +23,9 @@ class AccountServiceIntegrationTest {
     @Autowired
     private AccountRepository accountRepository;
 
+    @Autowired
+    private CacheManager cacheManager;
+
     private Account account;
 
 
@@ -29,14 +33,13 @@ class AccountServiceIntegrationTest {
     public void setUp() {
         // Creating an Account object
         account = Account.builder()
-                .id(1L)
                 .username("Tom")
                 .role("User")
                 .paymentInfo("3334 5566 3432 9090")
                 .paymentHistory(4)
                 .isPaymentSet(true)
                 .phone("0722946563")
-                .activeBookings("3")
+                .activeBookings(3)
                 .build();
     }
 
@@ -54,8 +57,8 @@ class AccountServiceIntegrationTest {
         assertNotNull(retrievedAccount);
     }
 
+    // Not transactional: the constraint violation marks the surrounding transaction as rollback-only
     @Test
-    @Transactional
     void createAccount_Should_ThrowException_When_DuplicateUsernameExists() {
         // Creating the initial account
         accountRepository.save(account);
@@ -106,14 +109,13 @@ class AccountServiceIntegrationTest {
     void deleteAccount_Should_HandleLowestBoundaryAccountId() {
         long lowestBoundaryAccountId = 1L; //Lowest account ID
         Account lowestBoundaryAccount = Account.builder()
-                .id(lowestBoundaryAccountId)
                 .username("UserWithLowestBoundaryId")
                 .role("User")
                 .paymentInfo("1234 5678 9012 3456")
                 .paymentHistory(5)
                 .isPaymentSet(true)
                 .phone("1234567890")
-                .activeBookings("2")
+                .activeBookings(2)
                 .build();
 
         // Saving the account to the database
@@ -141,7 +143,7 @@ class AccountServiceIntegrationTest {
 //                .paymentHistory(4)
 //                .isPaymentSet(true)
 //                .phone("0722946563")
-//                .activeBookings("3")
+//                .activeBookings(3)
 //                .build();
 //
 //        accountRepository.save(highestBoundaryAccount);
@@ -168,18 +170,22 @@ class AccountServiceIntegrationTest {
                 .id(1L)
                 .username("UpdatedUser")
                 .role("Admin")
-                .paymentInfo("1234 5678 9012 3456")
+                .paymentInfo("3334 5566 3432 9090")
                 .paymentHistory(5)
                 .isPaymentSet(false)
                 .phone("9876543210")
-                .activeBookings("6")
+                .activeBookings(6)
                 .build();
 
         // Act
-        Account result = accountService.updateAccount(1L, updatedAccount);
-
-        // Assert
-        assertEquals(updatedAccount, result);
+        Account result = accountService.updateAccount(1L, updatedAccount, null);
+
+        // Assert: the stored row comes back, with the counter the request cannot set left alone
+        assertEquals("UpdatedUser", result.getUsername());
+        assertEquals("Admin", result.getRole());
+        assertEquals("9876543210", result.getPhone());
+        assertEquals(account.getActiveBookings(), result.getActiveBookings());
+        assertEquals(1L, result.getVersion());
     }
     @Test
     @Transactional
@@ -192,7 +198,7 @@ class AccountServiceIntegrationTest {
 
         // Act and Assert
         assertThrows(ResourceNotFoundException.class,
-                () -> accountService.updateAccount(2L, updatedAccount));
+                () -> accountService.updateAccount(2L, updatedAccount, null));
     }
 
     @Test
@@ -207,12 +213,56 @@ class AccountServiceIntegrationTest {
                 .paymentHistory(-1) // Negative payment history
                 .isPaymentSet(false)
                 .phone("9876543210")
-                .activeBookings("6")
+                .activeBookings(6)
                 .build();
 
         // Act and Assert
         assertThrows(IllegalArgumentException.class,
-                () -> accountService.updateAccount(1L, updatedAccount));
+                () -> accountService.updateAccount(1L, updatedAccount, null));
     }
 
+    //METHOD: getAccountById
+
+    // Not transactional: cache evictions are applied when the service transaction commits
+    @Test
+    void getAccountById_Should_CacheAccount_And_EvictItOnUpdate() {
+        Account savedAccount = accountService.createAccount(account);
+        long accountId = savedAccount.getId();
+
+        accountService.getAccountById(accountId);
+        accountService.getAccountByUsername("Tom");
+        assertNotNull(cacheManager.getCache(AccountCache.ACCOUNTS_BY_ID).get(accountId));
+        assertNotNull(cacheManager.getCache(AccountCache.ACCOUNTS_BY_USERNAME).get("Tom"));
+
+        Account updatedAccount = Account.builder()
+                .username("UpdatedTom")
+                .role("Admin")
+                .paymentInfo("3334 5566 3432 9090")
+                .phone("0722946563")
+                .build();
+        accountService.updateAccount(accountId, updatedAccount, null);
+
+        assertNull(cacheManager.getCache(AccountCache.ACCOUNTS_BY_ID).get(accountId));
+        assertNull(cacheManager.getCache(AccountCache.ACCOUNTS_BY_USERNAME).get("Tom"));
+        assertEquals("Admin", accountService.getAccountById(accountId).orElseThrow().getRole());
+        assertTrue(accountService.getAccountByUsername("Tom").isEmpty());
+    }
+
+    @Test
+    void getAccountById_Should_NotCacheMissingAccount() {
+        assertTrue(accountService.getAccountById(42L).isEmpty());
+
+        assertNull(cacheManager.getCache(AccountCache.ACCOUNTS_BY_ID).get(42L));
+    }
+
+    @Test
+    void deleteAccount_Should_EvictCachedAccount() {
+        long accountId = accountService.createAccount(account).getId();
+        accountService.getAccountById(accountId);
+
+        accountService.deleteAccount(accountId);
+
+        assertNull(cacheManager.getCache(AccountCache.ACCOUNTS_BY_ID).get(accountId));
+        assertTrue(accountService.getAccountById(accountId).isEmpty());
+    }
 }
@@ -1,16 +1,29 @@
 package com.example.urbanmobility.service;
+import com.example.urbanmobility.dto.AccountPatch;
 import com.example.urbanmobility.exception.*;
 
 import com.example.urbanmobility.model.Account;
 import com.example.urbanmobility.repository.AccountRepository;
+import com.example.urbanmobility.repository.BookingRepository;
+import com.example.urbanmobility.validation.AccountValidator;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -18,6 +31,21 @@ class AccountServiceUnitTest {
     @Mock
     private AccountRepository accountRepository;
 
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Spy
+    private AccountValidator accountValidator = new AccountValidator();
+
+    @Mock
+    private AccountCache accountCache;
+
+    @Mock
+    private AccountRoleIndex accountRoleIndex;
+
+    @Mock
+    private BookingService bookingService;
+
     //Class we are testing
     @InjectMocks
     private AccountService accountService;
@@ -35,7 +63,7 @@ class AccountServiceUnitTest {
                 .paymentHistory(4)
                 .isPaymentSet(true)
                 .phone("0722946563")
-                .activeBookings("3")
+                .activeBookings(3)
                 .build();
     }
 
@@ -44,30 +72,41 @@ class AccountServiceUnitTest {
     void createAccount_Should_Return_TheCreatedAccount() {
 
                 // Arrange:
-                when(accountRepository.save(accountToCreate)).thenReturn(accountToCreate);
+                when(accountRepository.saveAndFlush(accountToCreate)).thenReturn(accountToCreate);
 
                 // Act:
                 Account createdAccount = accountService.createAccount(accountToCreate);
 
                 // Assert:
-                verify(accountRepository, times(1)).save(accountToCreate);
+                verify(accountRepository, times(1)).saveAndFlush(accountToCreate);
+                verify(accountRepository, never()).findByUsername(any());
                 assertEquals(accountToCreate, createdAccount);
             }
     @Test
     void createAccount_Should_ThrowException_If_AccountWithTheSameUsernameAlreadyExists() {
 
-        // Mocking the behavior of findByUsername to return an existing account with the same username
-
-        when(accountRepository.findByUsername(accountToCreate.getUsername())).thenReturn(accountToCreate);
-
+        // Mocking the insert failing on the unique username constraint
+        when(accountRepository.saveAndFlush(accountToCreate)).thenThrow(new DataIntegrityViolationException("duplicate",
+                new ConstraintViolationException("duplicate", new SQLException(), "PUBLIC.UK_ACCOUNT_USERNAME_INDEX_E")));
 
         // Verifying that the saveAccount method throws an exception
         assertThrows(UsernameAlreadyExistsException.class, () -> {
             accountService.createAccount(accountToCreate);
         });
 
-        // Verify that findByUsername was called
-        verify(accountRepository, times(1)).findByUsername(accountToCreate.getUsername());
+        // Verify that the duplicate check was a single insert, not a lookup
+        verify(accountRepository, never()).findByUsername(any());
+    }
+    @Test
+    void createAccount_Should_RethrowOtherIntegrityViolations() {
+        DataIntegrityViolationException violation = new DataIntegrityViolationException("not null",
+                new ConstraintViolationException("not null", new SQLException(), null));
+        when(accountRepository.saveAndFlush(accountToCreate)).thenThrow(violation);
+
+        DataIntegrityViolationException thrown = assertThrows(DataIntegrityViolationException.class, () -> {
+            accountService.createAccount(accountToCreate);
+        });
+        assertSame(violation, thrown);
     }
 
     @Test
@@ -82,8 +121,8 @@ class AccountServiceUnitTest {
         String actualErrorMessage = exception.getMessage();
         assertEquals(expectedErrorMessage, actualErrorMessage);
 
-        // Ensuring that accountRepository.save() was not called
-        verify(accountRepository, never()).save(any(Account.class));
+        // Ensuring that accountRepository.saveAndFlush() was not called
+        verify(accountRepository, never()).saveAndFlush(any(Account.class));
     }
     @Test
     void createAccount_Should_ReturnErrorMessage_If_PhoneNumber_Contains_LettersAndOrSymbols() {
@@ -97,8 +136,8 @@ class AccountServiceUnitTest {
         String actualErrorMessage = exception.getMessage();
         assertEquals(expectedErrorMessage, actualErrorMessage);
 
-        // Ensuring that accountRepository.save() was not called
-        verify(accountRepository, never()).save(any(Account.class));
+        // Ensuring that accountRepository.saveAndFlush() was not called
+        verify(accountRepository, never()).saveAndFlush(any(Account.class));
     }
     @Test
     void createAccount_Should_ReturnErrorMessage_If_InvalidCardNumberDigitsLength() {
@@ -114,8 +153,8 @@ class AccountServiceUnitTest {
         String actualErrorMessage = exception.getMessage();
         assertEquals(expectedErrorMessage, actualErrorMessage);
 
-        // Ensuring that accountRepository.save() was not called
-        verify(accountRepository, never()).save(any(Account.class));
+        // Ensuring that accountRepository.saveAndFlush() was not called
+        verify(accountRepository, never()).saveAndFlush(any(Account.class));
     }
     @Test
     void createAccount_Should_ReturnErrorMessage_If_CardNumber_HasLettersAndOrSymbols() {
@@ -131,8 +170,30 @@ class AccountServiceUnitTest {
         String actualErrorMessage = exception.getMessage();
         assertEquals(expectedErrorMessage, actualErrorMessage);
 
-        // Ensuring that accountRepository.save() was not called
-        verify(accountRepository, never()).save(any(Account.class));
+        // Ensuring that accountRepository.saveAndFlush() was not called
+        verify(accountRepository, never()).saveAndFlush(any(Account.class));
+    }
+
+    @Test
+    void createAccount_Should_ThrowValidationException_If_UsernameIsMissing() {
+        accountToCreate.setUsername(null);
+
+        assertThrows(ValidationException.class, () -> {
+            accountService.createAccount(accountToCreate);
+        });
+        verify(accountRepository, never()).saveAndFlush(any(Account.class));
+    }
+
+    @Test
+    void createAccount_Should_ReturnErrorMessage_If_CardNumberFailsChecksum() {
+        accountToCreate.setPaymentInfo("3334 5566 3432 9091"); //16 digits, but the Luhn checksum does not match
+
+        Exception exception = assertThrows(InvalidCardNumberException.class, () -> {
+            accountService.createAccount(accountToCreate);
+        });
+
+        assertEquals("Invalid card number. Please check the card number and try again.", exception.getMessage());
+        verify(accountRepository, never()).saveAndFlush(any(Account.class));
     }
 
     //METHOD: deleteAccount
@@ -143,15 +204,18 @@ class AccountServiceUnitTest {
         // Arrange
         Long accountId = accountToCreate.getId();
 
-        // Mocking the behavior of accountRepository.existsById to return false
-        when(accountRepository.existsById(accountId)).thenReturn(true);
+        // Mocking the behavior of accountRepository.findUsernameById to find the account
+        when(accountRepository.findUsernameById(accountId)).thenReturn(Optional.of(accountToCreate.getUsername()));
         doNothing().when(accountRepository).deleteById(accountId);
 
         // Act
         accountService.deleteAccount(accountId);
 
         // Assert
+        verify(bookingService, times(1)).deleteAccountBookings(accountId);
         verify(accountRepository, times(1)).deleteById(accountId);
+        verify(accountCache, times(1)).evict(accountId, accountToCreate.getUsername());
+        verify(accountRoleIndex, times(1)).remove(accountId);
     }
 
 
@@ -160,7 +224,7 @@ class AccountServiceUnitTest {
         // Arrange
         Long nonExistentAccountId = 2L; // Assuming this ID does not exist in the repository
         // Simulating that the account does not exist
-        when(accountRepository.existsById(nonExistentAccountId)).thenReturn(false);
+        when(accountRepository.findUsernameById(nonExistentAccountId)).thenReturn(Optional.empty());
 
         // Act and Assert
         assertThrows(EntityNotFoundException.class, () -> {
@@ -178,24 +242,64 @@ class AccountServiceUnitTest {
                 .id(accountId)
                 .username("UpdatedTom")
                 .role("Admin")
-                .paymentInfo("1234 5678 9012 3456")
+                .paymentInfo("3334 5566 3432 9090")
                 .paymentHistory(5)
                 .isPaymentSet(false)
                 .phone("1234567890")
-                .activeBookings("5")
+                .activeBookings(5)
                 .build();
 
-        // Mocking the behavior of accountRepository.findById to return the existing account
-        when(accountRepository.existsById(accountId)).thenReturn(true);
+        // Mocking the behavior of accountRepository.findUsernameById to return the current username
+        when(accountRepository.findUsernameById(accountId)).thenReturn(Optional.of("Tom"));
 
-        // Mocking the behavior of accountRepository.save to return the updated account
-        when(accountRepository.save(updatedAccount)).thenReturn(updatedAccount);
-        Account result = accountService.updateAccount(accountId, updatedAccount);
+        // Mocking the conditional update to match the expected version; a replacement writes every column
+        Map<String, Object> columns = Map.of("username", "UpdatedTom", "role", "Admin", "phone", "1234567890", "paymentInfo", "3334 5566 3432 9090", "paymentHistory", 5, "isPaymentSet", false);
+        when(accountRepository.patch(accountId, 3L, columns)).thenReturn(1);
+        // The stored row keeps its own activeBookings, which a client cannot set
+        Account stored = Account.builder()
+                .id(accountId)
+                .username("UpdatedTom")
+                .role("Admin")
+                .paymentInfo("3334 5566 3432 9090")
+                .paymentHistory(5)
+                .isPaymentSet(false)
+                .phone("1234567890")
+                .activeBookings(2)
+                .version(4L)
+                .build();
+        when(accountRepository.findById(accountId)).thenReturn(Optional.of(stored));
+        Account result = accountService.updateAccount(accountId, updatedAccount, 3L);
 
         // Assert
-        verify(accountRepository, times(1)).existsById(accountId);
-        verify(accountRepository, times(1)).save(updatedAccount);
-        assertEquals(updatedAccount, result);
+        verify(accountRepository, times(1)).findUsernameById(accountId);
+        verify(accountRepository, times(1)).patch(accountId, 3L, columns);
+        verify(accountRepository, never()).save(any(Account.class));
+        verify(bookingRepository, times(1)).renameAccountBookings(accountId, "UpdatedTom");
+        verify(accountCache, times(1)).evict(accountId, "Tom");
+        verify(accountCache, times(1)).evictUsername("UpdatedTom");
+        verify(accountRoleIndex, times(1)).remove(accountId);
+        assertEquals(stored, result);
+        assertEquals(2, result.getActiveBookings());
+        assertEquals(4L, result.getVersion());
+    }
+    @Test
+    void updateAccount_Should_ThrowPreconditionFailed_On_StaleVersion() {
+        long accountId = accountToCreate.getId();
+        Account updatedAccount = Account.builder()
+                .username("UpdatedTom")
+                .role("Admin")
+                .paymentInfo("3334 5566 3432 9090")
+                .phone("1234567890")
+                .build();
+
+        when(accountRepository.findUsernameById(accountId)).thenReturn(Optional.of("Tom"));
+        // Another writer already moved the row past version 3
+        when(accountRepository.patch(eq(accountId), eq(3L), anyMap())).thenReturn(0);
+
+        assertThrows(PreconditionFailedException.class,
+                () -> accountService.updateAccount(accountId, updatedAccount, 3L));
+        verify(bookingRepository, never()).renameAccountBookings(anyLong(), anyString());
+        verify(accountCache, never()).evict(anyLong(), anyString());
     }
     @Test
     void updateAccount_Should_ThrowException_If_UsernameDataIsMissing() {
@@ -206,13 +310,13 @@ class AccountServiceUnitTest {
         updatedAccount.setId(accountId);
         updatedAccount.setUsername(""); // Invalid: Empty username
 
-        // Mocking the behavior of accountRepository.existsById to return true
-        when(accountRepository.existsById(accountId)).thenReturn(true);
+        // Mocking the behavior of accountRepository.findUsernameById to find the account
+        when(accountRepository.findUsernameById(accountId)).thenReturn(Optional.of("Tom"));
 
         assertThrows(IllegalArgumentException.class, () -> {
-            accountService.updateAccount(accountId, updatedAccount);
+            accountService.updateAccount(accountId, updatedAccount, null);
         });
-        verify(accountRepository, never()).save(any(Account.class));
+        verify(accountRepository, never()).patch(anyLong(), any(), any());
     }
     @Test
     void updateAccount_Should_ThrowResourceNotFoundException_On_NonExistentAccount() {
@@ -221,21 +325,21 @@ class AccountServiceUnitTest {
                 .id(nonExistentAccountId)
                 .username("UpdatedTom")
                 .role("Admin")
-                .paymentInfo("1234 5678 9012 3456")
+                .paymentInfo("3334 5566 3432 9090")
                 .paymentHistory(5)
                 .isPaymentSet(false)
                 .phone("1234567890")
-                .activeBookings("5")
+                .activeBookings(5)
                 .build();
 
-        // Mocking the behavior of accountRepository.existsById to return false (non-existent account)
-        when(accountRepository.existsById(nonExistentAccountId)).thenReturn(false);
+        // Mocking the behavior of accountRepository.findUsernameById to find nothing (non-existent account)
+        when(accountRepository.findUsernameById(nonExistentAccountId)).thenReturn(Optional.empty());
 
         // Act and Assert
         assertThrows(ResourceNotFoundException.class, () -> {
-            accountService.updateAccount(nonExistentAccountId, updatedAccount);
+            accountService.updateAccount(nonExistentAccountId, updatedAccount, null);
         });
-        verify(accountRepository, times(1)).existsById(nonExistentAccountId);
+        verify(accountRepository, times(1)).findUsernameById(nonExistentAccountId);
     }
     @Test
     void updateAccount_WithEmptyData_ShouldThrowException() {
@@ -249,16 +353,104 @@ class AccountServiceUnitTest {
                 .paymentHistory(0)
                 .isPaymentSet(false)
                 .phone(null)
-                .activeBookings("")
+                .activeBookings(0)
                 .build();
 
-        // Mock the behavior of accountRepository.existsById to return true
-        when(accountRepository.existsById(accountId)).thenReturn(true);
+        // Mock the behavior of accountRepository.findUsernameById to find the account
+        when(accountRepository.findUsernameById(accountId)).thenReturn(Optional.of("Tom"));
 
         // Act and Assert
         assertThrows(
                 IllegalArgumentException.class,
-                () -> {accountService.updateAccount(accountId, updatedAccount);});
+                () -> {accountService.updateAccount(accountId, updatedAccount, null);});
+    }
+
+    @Test
+    void updateAccount_Should_RejectReplacement_WithEmptyOrMissingFields() {
+        long accountId = accountToCreate.getId();
+        Account updatedAccount = Account.builder()
+                .username("UpdatedTom")
+                .role("")
+                .paymentInfo("3334 5566 3432 9090")
+                .build();
+        when(accountRepository.findUsernameById(accountId)).thenReturn(Optional.of("Tom"));
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> accountService.updateAccount(accountId, updatedAccount, null));
+        assertEquals("Account fields cannot be empty: role, phone", exception.getMessage());
+        verify(accountRepository, never()).patch(anyLong(), any(), any());
+    }
+
+    @Test
+    void updateAccount_Should_ApplyTheSameFormatChecks_AsAPatch() {
+        long accountId = accountToCreate.getId();
+        when(accountRepository.findUsernameById(accountId)).thenReturn(Optional.of("Tom"));
+        Account badPhone = Account.builder()
+                .username("Tom")
+                .role("User")
+                .paymentInfo("3334 5566 3432 9090")
+                .phone("12")
+                .build();
+        Account badChecksum = Account.builder()
+                .username("Tom")
+                .role("User")
+                .paymentInfo("3334 5566 3432 9091")
+                .phone("0722946563")
+                .build();
+
+        assertThrows(InvalidPhoneNumberException.class, () -> accountService.updateAccount(accountId, badPhone, null));
+        assertThrows(InvalidCardNumberException.class, () -> accountService.updateAccount(accountId, badChecksum, null));
+        verify(accountRepository, never()).patch(anyLong(), any(), any());
+    }
+
+    //METHOD: patchAccount
+    @Test
+    void patchAccount_Should_WriteOnlySuppliedColumns() {
+        long accountId = accountToCreate.getId();
+        when(accountRepository.findUsernameById(accountId)).thenReturn(Optional.of("Tom"));
+        when(accountRepository.patch(accountId, null, Map.of("role", "Admin"))).thenReturn(1);
+        when(accountRepository.findById(accountId)).thenReturn(Optional.of(accountToCreate));
+
+        accountService.patchAccount(accountId, new AccountPatch(null, "Admin", null, null, null, null), null);
+
+        verify(accountRepository, times(1)).patch(accountId, null, Map.of("role", "Admin"));
+        // The username is unchanged, so bookings are left alone
+        verify(bookingRepository, never()).renameAccountBookings(anyLong(), anyString());
+        verify(accountCache, times(1)).evict(accountId, "Tom");
+        verify(accountRoleIndex, times(1)).remove(accountId);
+    }
+    @Test
+    void patchAccount_Should_ThrowException_On_InvalidPhone() {
+        assertThrows(InvalidPhoneNumberException.class,
+                () -> accountService.patchAccount(1L, new AccountPatch(null, null, "12", null, null, null), null));
+        verify(accountRepository, never()).patch(anyLong(), any(), any());
+    }
+    @Test
+    void patchAccount_Should_ThrowPreconditionFailed_On_StaleVersion() {
+        long accountId = accountToCreate.getId();
+        when(accountRepository.findUsernameById(accountId)).thenReturn(Optional.of("Tom"));
+        when(accountRepository.patch(accountId, 2L, Map.of("paymentHistory", 9))).thenReturn(0);
+
+        assertThrows(PreconditionFailedException.class,
+                () -> accountService.patchAccount(accountId, new AccountPatch(null, null, null, null, 9, null), 2L));
+        verify(accountCache, never()).evict(anyLong(), anyString());
+    }
+
+    //METHOD: getAccountFields
+    @Test
+    void getAccountFields_Should_AlwaysSelectId_AsPaginationCursor() {
+        when(accountRepository.findFieldsAfter(List.of("id", "username"), 0L, 10)).thenReturn(List.of());
+
+        accountService.getAccountFields(List.of("username"), 0L, 10);
+
+        verify(accountRepository, times(1)).findFieldsAfter(List.of("id", "username"), 0L, 10);
+    }
+    @Test
+    void getAccountSummaries_Should_ThrowException_On_LimitOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> accountService.getAccountSummaries(0L, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> accountService.getAccountSummaries(0L, AccountService.MAX_PAGE_SIZE + 1));
+        verify(accountRepository, never()).findSummariesAfter(anyLong(), any());
     }
 }
 
@@ -24,19 +24,21 @@ class AuthenticationServiceIntegrationTest {
     @Autowired
     private AccountRepository accountRepository;
 
+    @Autowired
+    private AccountService accountService;
+
     private Account supplierAccount;
     @BeforeEach
     public void setup() {
         // Supplier Account
         supplierAccount = Account.builder()
-                .id(1L)
                 .username("John")
                 .role("supplier")
                 .paymentInfo("1234 5678 9123 4567")
                 .paymentHistory(5)
                 .isPaymentSet(true)
                 .phone("0722946570")
-                .activeBookings("2")
+                .activeBookings(2)
                 .build();
     }
     @Test
@@ -67,7 +69,7 @@ class AuthenticationServiceIntegrationTest {
                 .paymentHistory(6)
                 .isPaymentSet(true)
                 .phone("0722946580")
-                .activeBookings("1")
+                .activeBookings(1)
                 .build();
 
         // Saving nonSupplier to the database
@@ -78,4 +80,25 @@ class AuthenticationServiceIntegrationTest {
         );
 
     }
-}
\ No newline at end of file
+    @Test
+    public void authenticateSupplier_Should_FollowRoleChanges_MadeThroughAccountService() {
+        Account supplier = accountService.createAccount(Account.builder()
+                .username("Sam")
+                .role("supplier")
+                .paymentInfo("3334 5566 3432 9090")
+                .phone("0722946570")
+                .build());
+        assertEquals("Authenticated successfully as a supplier!",
+                authenticationService.authenticateSupplier(supplier.getId()));
+
+        accountService.updateAccount(supplier.getId(), Account.builder()
+                .username("Sam")
+                .role("user")
+                .paymentInfo("3334 5566 3432 9090")
+                .phone("0722946570")
+                .build(), null);
+
+        assertThrows(InvalidPermissionException.class,
+                () -> authenticationService.authenticateSupplier(supplier.getId()));
+    }
+}
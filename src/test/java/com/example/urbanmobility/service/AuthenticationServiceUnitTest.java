@@ -3,13 +3,15 @@ package com.example.urbanmobility.service;
 import com.example.urbanmobility.exception.InvalidPermissionException;
 import com.example.urbanmobility.exception.ResourceNotFoundException;
 import com.example.urbanmobility.model.Account;
+import com.example.urbanmobility.model.Role;
+import com.example.urbanmobility.repository.AccountRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 
 import java.util.Optional;
 
@@ -18,9 +20,8 @@ import static org.junit.jupiter.api.Assertions.*;
 class AuthenticationServiceUnitTest {
 
     @Mock
-    private AccountService accountService; //Class we are mocking
+    private AccountRepository accountRepository; //Class we are mocking
 
-    @InjectMocks
     private AuthenticationService authenticationService; //Class we are testing
 
     private Account supplierAccount;
@@ -29,6 +30,8 @@ class AuthenticationServiceUnitTest {
 
     @BeforeEach
     public void setup() {
+        authenticationService = new AuthenticationService(new AccountRoleIndex(accountRepository, new ConcurrentMapCacheManager(AccountRoleIndex.ACCOUNT_ROLES)));
+
         // Supplier Account
         supplierAccount = Account.builder()
                 .id(1L)
@@ -38,7 +41,7 @@ class AuthenticationServiceUnitTest {
                 .paymentHistory(5)
                 .isPaymentSet(true)
                 .phone("0722946570")
-                .activeBookings("2")
+                .activeBookings(2)
                 .build();
 
         // Non-Supplier Account
@@ -50,7 +53,7 @@ class AuthenticationServiceUnitTest {
                 .paymentHistory(6)
                 .isPaymentSet(true)
                 .phone("0722946580")
-                .activeBookings("1")
+                .activeBookings(1)
                 .build();
 
         // Supplier Account with different case
@@ -62,13 +65,13 @@ class AuthenticationServiceUnitTest {
                 .paymentHistory(7)
                 .isPaymentSet(true)
                 .phone("0722946590")
-                .activeBookings("3")
+                .activeBookings(3)
                 .build();
     }
     @Test
     void authenticateSupplier_Should_ThrowException_When_AccountDoesNotExist() {
         long nonExistentAccountId = 3L;
-        Mockito.when(accountService.getAccountById(nonExistentAccountId)).thenReturn(Optional.empty());
+        Mockito.when(accountRepository.findRoleById(nonExistentAccountId)).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class,
                 () -> authenticationService.authenticateSupplier(nonExistentAccountId));
@@ -76,14 +79,14 @@ class AuthenticationServiceUnitTest {
 
     @Test
     void authenticateSupplier_Should_ThrowException_When_AccountExistsButNotSupplier() {
-        Mockito.when(accountService.getAccountById(nonSupplierAccount.getId())).thenReturn(Optional.of(nonSupplierAccount));
+        Mockito.when(accountRepository.findRoleById(nonSupplierAccount.getId())).thenReturn(Optional.of(nonSupplierAccount.getRole()));
 
         assertThrows(InvalidPermissionException.class,
                 () -> authenticationService.authenticateSupplier(nonSupplierAccount.getId()));
     }
     @Test
     void authenticateSupplier_Should_AuthenticateSuccessfully_When_AccountExistsAndIsSupplier() {
-        Mockito.when(accountService.getAccountById(supplierAccount.getId())).thenReturn(Optional.of(supplierAccount));
+        Mockito.when(accountRepository.findRoleById(supplierAccount.getId())).thenReturn(Optional.of(supplierAccount.getRole()));
 
         String response = authenticationService.authenticateSupplier(supplierAccount.getId());
 
@@ -91,13 +94,27 @@ class AuthenticationServiceUnitTest {
     }
     @Test
     void authenticateSupplier_Should_Pass_AccountRoleCaseInsensitiveCheck() {
-        Mockito.when(accountService.getAccountById(supplierAccountDifferentCase.getId())).thenReturn(Optional.of(supplierAccountDifferentCase));
+        Mockito.when(accountRepository.findRoleById(supplierAccountDifferentCase.getId())).thenReturn(Optional.of(supplierAccountDifferentCase.getRole()));
 
         String response = authenticationService.authenticateSupplier(supplierAccountDifferentCase.getId());
 
         assertEquals("Authenticated successfully as a supplier!", response);
     }
+    @Test
+    void authenticate_Should_CheckOtherRoles() {
+        Account adminAccount = Account.builder().id(4L).username("Ada").role("Admin").build();
+        Mockito.when(accountRepository.findRoleById(adminAccount.getId())).thenReturn(Optional.of(adminAccount.getRole()));
 
+        assertEquals("Authenticated successfully as an admin!", authenticationService.authenticate(4L, Role.ADMIN));
+        assertThrows(InvalidPermissionException.class, () -> authenticationService.authenticate(4L, Role.SUPPLIER));
+    }
+    @Test
+    void authenticate_Should_QueryRoleOnce_ForRepeatedChecks() {
+        Mockito.when(accountRepository.findRoleById(supplierAccount.getId())).thenReturn(Optional.of(supplierAccount.getRole()));
 
+        authenticationService.authenticateSupplier(supplierAccount.getId());
+        authenticationService.authenticateSupplier(supplierAccount.getId());
 
+        Mockito.verify(accountRepository, Mockito.times(1)).findRoleById(supplierAccount.getId());
     }
+}
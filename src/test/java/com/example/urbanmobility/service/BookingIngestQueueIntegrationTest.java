@@ -0,0 +1,127 @@
+package com.example.urbanmobility.service;
+
+import com.example.urbanmobility.exception.IngestQueueFullException;
+import com.example.urbanmobility.TestAccounts;
+import com.example.urbanmobility.model.Booking;
+import com.example.urbanmobility.model.Route;
+import com.example.urbanmobility.repository.AccountRepository;
+import com.example.urbanmobility.repository.BookingRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "app.bookings.ingest.enabled=true")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class BookingIngestQueueIntegrationTest {
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private RouteCapacityService routeCapacityService;
+
+    @Autowired
+    private RouteDemandService routeDemandService;
+
+    @BeforeEach
+    public void setup() {
+        TestAccounts.create(accountService, "testUser");
+        TestAccounts.create(accountService, "anotherTestUser");
+    }
+
+    //METHOD: submit
+    @Test
+    void submit_Should_CommitEveryAcceptedBooking_InBatches() throws Exception {
+        List<CompletableFuture<Booking>> committed = new ArrayList<>();
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < 1200; i++) {
+            Booking booking = Booking.builder().username(i % 3 == 0 ? "anotherTestUser" : "testUser").routeId(1 + i % 7).build();
+            BookingIngestQueue.Ticket ticket = bookingService.ingestBooking(booking);
+            // The id is known as soon as the booking is accepted
+            assertTrue(ids.add(ticket.booking().getBookingId()));
+            committed.add(ticket.committed());
+        }
+        CompletableFuture.allOf(committed.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+
+        assertEquals(1200, bookingRepository.count());
+        assertEquals(800, accountRepository.findById(TestAccounts.idOf(accountRepository, "testUser")).orElseThrow().getActiveBookings());
+        assertEquals(400, accountRepository.findById(TestAccounts.idOf(accountRepository, "anotherTestUser")).orElseThrow().getActiveBookings());
+        assertEquals(172, routeDemandService.getStats(1).activeBookings());
+    }
+
+    @Test
+    void submit_Should_ShareTheIdSequence_WithSynchronousInserts() throws Exception {
+        Booking ingested = bookingService.ingestBooking(Booking.builder().username("testUser").routeId(1).build())
+                .committed().get(10, TimeUnit.SECONDS);
+        Booking saved = bookingService.createBooking(Booking.builder().username("testUser").routeId(1).build());
+
+        assertNotEquals(ingested.getBookingId(), saved.getBookingId());
+        assertEquals(2, bookingRepository.count());
+    }
+
+    @Test
+    void submit_Should_ReleaseSeat_WhenInsertFails(@Autowired BookingIngestQueue bookingIngestQueue) throws Exception {
+        routeCapacityService.saveRoute(Route.builder().routeId(9).capacity(1).build());
+        routeCapacityService.reserve(9);
+        // No account has this id, so the insert breaks the foreign key
+        BookingIngestQueue.Ticket ticket = bookingIngestQueue.submit(Booking.builder().username("ghost").routeId(9).build(), 999L);
+
+        assertThrows(ExecutionException.class, () -> ticket.committed().get(10, TimeUnit.SECONDS));
+        assertEquals(0, routeCapacityService.getRoute(9).orElseThrow().getReserved());
+    }
+
+    @Test
+    void submit_Should_RejectBookings_WhenQueueIsFull(@Autowired JdbcTemplate jdbcTemplate,
+                                                      @Autowired TransactionTemplate transactionTemplate,
+                                                      @Autowired AccountCache accountCache,
+                                                      @Autowired EntityManagerFactory entityManagerFactory) {
+        // Never started, so nothing drains the two slots
+        BookingIngestQueue queue = new BookingIngestQueue(2, 500, Duration.ofMillis(5), jdbcTemplate, transactionTemplate,
+                accountRepository, accountCache, routeCapacityService, routeDemandService,
+                Optional.empty(), entityManagerFactory);
+        long accountId = TestAccounts.idOf(accountRepository, "testUser");
+        queue.submit(Booking.builder().username("testUser").routeId(1).build(), accountId);
+        queue.submit(Booking.builder().username("testUser").routeId(1).build(), accountId);
+
+        assertThrows(IngestQueueFullException.class,
+                () -> queue.submit(Booking.builder().username("testUser").routeId(1).build(), accountId));
+    }
+
+    @Test
+    void submit_Should_RejectBookings_OnceStopHasBegun(@Autowired BookingIngestQueue bookingIngestQueue) throws Exception {
+        BookingIngestQueue.Ticket accepted = bookingIngestQueue.submit(
+                Booking.builder().username("testUser").routeId(1).build(), TestAccounts.idOf(accountRepository, "testUser"));
+
+        bookingIngestQueue.stop();
+
+        assertEquals(accepted.booking().getBookingId(), accepted.committed().get(10, TimeUnit.SECONDS).getBookingId());
+        assertThrows(IngestQueueFullException.class, () -> bookingIngestQueue.submit(
+                Booking.builder().username("testUser").routeId(1).build(), TestAccounts.idOf(accountRepository, "testUser")));
+        assertEquals(1, bookingRepository.count());
+    }
+}
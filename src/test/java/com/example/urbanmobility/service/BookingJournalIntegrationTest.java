@@ -0,0 +1,114 @@
+package com.example.urbanmobility.service;
+
+import com.example.urbanmobility.exception.RouteFullException;
+import com.example.urbanmobility.TestAccounts;
+import com.example.urbanmobility.model.Booking;
+import com.example.urbanmobility.model.BookingStatus;
+import com.example.urbanmobility.model.Route;
+import com.example.urbanmobility.repository.BookingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Every context gets its own journal directory, matching its fresh in-memory database
+@SpringBootTest(properties = {
+        "app.bookings.journal.enabled=true",
+        "app.bookings.journal.dir=${java.io.tmpdir}/urban-mobility-test/${random.uuid}"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class BookingJournalIntegrationTest {
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private RouteCapacityService routeCapacityService;
+
+    @Autowired
+    private RouteDemandService routeDemandService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private BookingJournal bookingJournal;
+
+    @BeforeEach
+    public void setup() {
+        TestAccounts.create(accountService, "testUser");
+    }
+
+    private List<String> journalOps() {
+        List<String> ops = new ArrayList<>();
+        bookingJournal.replay((bookingId, routeId, usernameHash, op, timestamp) -> ops.add(op + ":" + bookingId + ":" + routeId));
+        return ops;
+    }
+
+    //METHOD: record
+
+    @Test
+    void record_Should_KeepTheHistory_ThatUpdatesAndDeletesOverwrite() {
+        long bookingId = bookingService.createBooking(Booking.builder().username("testUser").routeId(3).build()).getBookingId();
+        bookingService.updateBooking(bookingId, Booking.builder().username("testUser").routeId(4).build(), null);
+        bookingService.updateBooking(bookingId,
+                Booking.builder().username("testUser").routeId(4).status(BookingStatus.CANCELLED).build(), null);
+        bookingService.deleteBooking(bookingId);
+
+        assertEquals(List.of(
+                "CREATED:" + bookingId + ":3",
+                "ACTIVATED:" + bookingId + ":4",
+                "DEACTIVATED:" + bookingId + ":3",
+                "UPDATED:" + bookingId + ":4",
+                "DEACTIVATED:" + bookingId + ":4",
+                "UPDATED:" + bookingId + ":4",
+                "DELETED:" + bookingId + ":4"), journalOps());
+        assertTrue(bookingRepository.findById(bookingId).isEmpty());
+    }
+
+    @Test
+    void record_Should_LeaveOutRolledBackWrites() {
+        routeCapacityService.saveRoute(Route.builder().routeId(9).capacity(1).build());
+        bookingService.createBooking(Booking.builder().username("testUser").routeId(9).build());
+
+        assertThrows(RouteFullException.class,
+                () -> bookingService.createBooking(Booking.builder().username("testUser").routeId(9).build()));
+
+        assertEquals(1, journalOps().size());
+    }
+
+    //METHOD: replay
+
+    @Test
+    void replay_Should_RebuildRouteCounts_WithoutTheBookingTable() {
+        List<Booking> bookings = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            bookings.add(Booking.builder().username("testUser").routeId(1 + i % 4).build());
+        }
+        List<Booking> saved = bookingService.createBookings(bookings);
+        bookingService.updateBooking(saved.get(0).getBookingId(),
+                Booking.builder().username("testUser").routeId(2).build(), null);
+        bookingService.deleteBooking(saved.get(1).getBookingId());
+        bookingService.updateBooking(saved.get(2).getBookingId(),
+                Booking.builder().username("testUser").routeId(3).status(BookingStatus.COMPLETED).build(), null);
+
+        assertTrue(bookingJournal.coversAllBookings());
+        RouteDemandService rebuilt = new RouteDemandService(bookingRepository, Optional.of(bookingJournal), Duration.ofSeconds(60));
+        rebuilt.load();
+
+        for (int routeId = 1; routeId <= 4; routeId++) {
+            assertEquals(routeDemandService.getStats(routeId).activeBookings(), rebuilt.getStats(routeId).activeBookings());
+            assertEquals(bookingRepository.countByRouteIdAndStatus(routeId, BookingStatus.ACTIVE),
+                    rebuilt.getStats(routeId).activeBookings());
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.urbanmobility.service;
+
+import com.example.urbanmobility.repository.BookingRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BookingJournalUnitTest {
+    // Header slot plus four records per segment
+    private static final DataSize SMALL_SEGMENT = DataSize.ofBytes(5 * BookingJournal.RECORD_SIZE);
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @TempDir
+    private Path directory;
+
+    private record Event(long bookingId, int routeId, int usernameHash, BookingJournal.Op op, long timestamp) {
+    }
+
+    private BookingJournal open() {
+        BookingJournal journal = new BookingJournal(directory, SMALL_SEGMENT, bookingRepository);
+        journal.open();
+        return journal;
+    }
+
+    private static List<Event> replay(BookingJournal journal) {
+        List<Event> events = new ArrayList<>();
+        long replayed = journal.replay((bookingId, routeId, usernameHash, op, timestamp) ->
+                events.add(new Event(bookingId, routeId, usernameHash, op, timestamp)));
+        assertEquals(events.size(), replayed);
+        return events;
+    }
+
+    private long segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    //METHOD: append
+
+    @Test
+    void append_Should_ReplayEveryField_InOrder() {
+        when(bookingRepository.count()).thenReturn(0L);
+        BookingJournal journal = open();
+
+        journal.append(BookingJournal.Op.CREATED, 1L, 7, "Tom".hashCode(), 1000L);
+        journal.append(BookingJournal.Op.DEACTIVATED, 1L, 7, "Tom".hashCode(), 2000L);
+        journal.append(BookingJournal.Op.DELETED, Long.MAX_VALUE, Integer.MAX_VALUE, -1, 3000L);
+
+        assertEquals(List.of(
+                new Event(1L, 7, "Tom".hashCode(), BookingJournal.Op.CREATED, 1000L),
+                new Event(1L, 7, "Tom".hashCode(), BookingJournal.Op.DEACTIVATED, 2000L),
+                new Event(Long.MAX_VALUE, Integer.MAX_VALUE, -1, BookingJournal.Op.DELETED, 3000L)), replay(journal));
+        assertEquals(3, journal.size());
+    }
+
+    @Test
+    void append_Should_RollOverToNewSegments_WhenOneIsFull() throws IOException {
+        when(bookingRepository.count()).thenReturn(0L);
+        BookingJournal journal = open();
+
+        for (int i = 1; i <= 10; i++) {
+            journal.append(BookingJournal.Op.CREATED, i, i, 0, i);
+        }
+
+        assertEquals(3, segments());
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L),
+                replay(journal).stream().map(Event::bookingId).toList());
+    }
+
+    //METHOD: open
+
+    @Test
+    void open_Should_ContinueAfterTheLastRecord_OfAnExistingJournal() throws IOException {
+        when(bookingRepository.count()).thenReturn(0L);
+        BookingJournal journal = open();
+        for (int i = 1; i <= 6; i++) {
+            journal.append(BookingJournal.Op.CREATED, i, 1, 0, i);
+        }
+        journal.close();
+        when(bookingRepository.count()).thenReturn(6L);
+
+        BookingJournal reopened = open();
+        reopened.append(BookingJournal.Op.UPDATED, 7, 1, 0, 7);
+        reopened.append(BookingJournal.Op.UPDATED, 8, 1, 0, 8);
+        reopened.append(BookingJournal.Op.UPDATED, 9, 1, 0, 9);
+
+        assertEquals(9, reopened.size());
+        assertEquals(3, segments());
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L),
+                replay(reopened).stream().map(Event::bookingId).toList());
+        assertTrue(reopened.coversAllBookings());
+    }
+
+    @Test
+    void open_Should_NotClaimToCoverBookings_ThatExistedBeforeTheJournal() {
+        when(bookingRepository.count()).thenReturn(12L);
+
+        assertFalse(open().coversAllBookings());
+        // The answer is kept in the first segment, not asked again
+        assertFalse(open().coversAllBookings());
+    }
+
+    @Test
+    void open_Should_StopCoveringBookings_When_TheTableWasRecreatedEmpty() {
+        when(bookingRepository.count()).thenReturn(0L);
+        BookingJournal journal = open();
+        journal.append(BookingJournal.Op.CREATED, 1, 1, 0, 1);
+        journal.close();
+
+        assertFalse(open().coversAllBookings());
+        // Cleared on disk, so the old records are not trusted after the next restart either
+        assertFalse(open().coversAllBookings());
+    }
+
+    //METHOD: replay
+
+    @Test
+    void replay_Should_SkipRecordsAppendedAfterItStarted() {
+        when(bookingRepository.count()).thenReturn(0L);
+        BookingJournal journal = open();
+        journal.append(BookingJournal.Op.CREATED, 1, 1, 0, 1);
+        journal.append(BookingJournal.Op.CREATED, 2, 1, 0, 2);
+
+        List<Long> seen = new ArrayList<>();
+        journal.replay((bookingId, routeId, usernameHash, op, timestamp) -> {
+            seen.add(bookingId);
+            journal.append(BookingJournal.Op.UPDATED, bookingId + 100, 1, 0, 3);
+        });
+
+        assertEquals(List.of(1L, 2L), seen);
+        assertEquals(4, journal.size());
+    }
+}
@@ -1,7 +1,13 @@
 package com.example.urbanmobility.service;
 
+import com.example.urbanmobility.dto.AccountSummary;
+import com.example.urbanmobility.dto.BookingPatch;
+import com.example.urbanmobility.exception.PreconditionFailedException;
 import com.example.urbanmobility.exception.ResourceNotFoundException;
+import com.example.urbanmobility.model.Account;
 import com.example.urbanmobility.model.Booking;
+import com.example.urbanmobility.model.BookingStatus;
+import com.example.urbanmobility.repository.AccountRepository;
 import com.example.urbanmobility.repository.BookingRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,13 +17,19 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -26,17 +38,37 @@ class BookingServiceUnitTest {
     @Mock
     private BookingRepository bookingRepository;
 
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private AccountCache accountCache;
+
+    @Mock
+    private RouteCapacityService routeCapacityService;
+
+    @Mock
+    private RouteDemandService routeDemandService;
+
     @InjectMocks
     private BookingService bookingService;
 
+    private Account account;
     private Booking booking;
 
     @BeforeEach
     public void setup() {
+        account = Account.builder()
+                .id(7L)
+                .username("Valeria")
+                .build();
+
         booking = Booking.builder()
                 .bookingId(1L)
                 .routeId(101)
                 .username("Valeria")
+                .account(account)
+                .status(BookingStatus.ACTIVE)
                 .build();
     }
 
@@ -44,6 +76,8 @@ class BookingServiceUnitTest {
     @Test
     void createBooking_Should_ReturnSavedBooking_On_ValidBooking() {
         // Arrange
+        when(accountRepository.findIdByUsername("Valeria")).thenReturn(Optional.of(7L));
+        when(accountRepository.getReferenceById(7L)).thenReturn(account);
         when(bookingRepository.save(any())).thenReturn(booking);
 
         // Act
@@ -52,6 +86,17 @@ class BookingServiceUnitTest {
         // Assert
         assertNotNull(result);
         assertEquals(booking.getBookingId(), result.getBookingId());
+        assertEquals(BookingStatus.ACTIVE, result.getStatus());
+        verify(accountRepository).adjustActiveBookings(7L, 1);
+    }
+    @Test
+    void createBooking_Should_ThrowException_On_UnknownAccount() {
+        when(accountRepository.findIdByUsername("Valeria")).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> bookingService.createBooking(booking));
+
+        verify(bookingRepository, never()).save(any());
+        verify(accountRepository, never()).adjustActiveBookings(anyLong(), anyInt());
     }
     @Test
     void createBooking_Should_ThrowException_On_NullBooking() {
@@ -82,20 +127,74 @@ class BookingServiceUnitTest {
         });
     }
 
+    //METHOD: createBookings
+    @Test
+    void createBookings_Should_ResolveAccountsOnce_AndSaveAllTogether() {
+        Booking second = Booking.builder().routeId(102).username("Valeria").build();
+        Booking third = Booking.builder().routeId(103).username("John").build();
+        List<Booking> batch = Arrays.asList(booking, second, third);
+        when(accountRepository.findSummariesByUsernameIn(Set.of("Valeria", "John")))
+                .thenReturn(List.of(new AccountSummary(7L, "Valeria", "User"), new AccountSummary(8L, "John", "User")));
+        when(bookingRepository.saveAll(batch)).thenReturn(batch);
+
+        List<Booking> result = bookingService.createBookings(batch);
+
+        assertEquals(3, result.size());
+        assertTrue(result.stream().allMatch(b -> b.getStatus() == BookingStatus.ACTIVE));
+        verify(bookingRepository, never()).save(any());
+        verify(accountRepository).adjustActiveBookings(7L, 2);
+        verify(accountRepository).adjustActiveBookings(8L, 1);
+    }
+    @Test
+    void createBookings_Should_SaveNothing_When_AnyBookingIsInvalid() {
+        Booking invalid = Booking.builder().routeId(-1).username("Valeria").build();
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> bookingService.createBookings(Arrays.asList(booking, invalid)));
+
+        verify(bookingRepository, never()).saveAll(any());
+    }
+    @Test
+    void createBookings_Should_ThrowException_On_UnknownAccount() {
+        when(accountRepository.findSummariesByUsernameIn(Set.of("Valeria"))).thenReturn(List.of());
+
+        assertThrows(ResourceNotFoundException.class,
+                () -> bookingService.createBookings(List.of(booking)));
+
+        verify(bookingRepository, never()).saveAll(any());
+    }
+    @Test
+    void createBookings_Should_ThrowException_On_EmptyOrOversizedBatch() {
+        assertThrows(IllegalArgumentException.class, () -> bookingService.createBookings(List.of()));
+        assertThrows(IllegalArgumentException.class,
+                () -> bookingService.createBookings(Collections.nCopies(BookingService.MAX_BATCH_SIZE + 1, booking)));
+    }
+
     //METHOD: deleteBooking
     @Test
     void deleteBooking_Should_DeleteSuccessfully_AnExistingBooking() {
         long existingBookingId = 1L;
-        Mockito.when(bookingRepository.existsById(existingBookingId)).thenReturn(true);
+        Mockito.when(bookingRepository.findById(existingBookingId)).thenReturn(Optional.of(booking));
 
         assertDoesNotThrow(() -> bookingService.deleteBooking(existingBookingId));
-        Mockito.verify(bookingRepository).deleteById(existingBookingId);
+        Mockito.verify(bookingRepository).delete(booking);
+        Mockito.verify(accountRepository).adjustActiveBookings(7L, -1);
+    }
+    @Test
+    void deleteBooking_Should_NotDecrementCounter_On_CancelledBooking() {
+        booking.setStatus(BookingStatus.CANCELLED);
+        Mockito.when(bookingRepository.findById(1L)).thenReturn(Optional.of(booking));
+
+        bookingService.deleteBooking(1L);
+
+        Mockito.verify(bookingRepository).delete(booking);
+        Mockito.verify(accountRepository, never()).adjustActiveBookings(anyLong(), anyInt());
     }
 
     @Test
     void deleteBooking_Should_ThrowException_On_NonExistingBooking() {
         long nonExistingBookingId = 2L;
-        Mockito.when(bookingRepository.existsById(nonExistingBookingId)).thenReturn(false);
+        Mockito.when(bookingRepository.findById(nonExistingBookingId)).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class,
                 () -> bookingService.deleteBooking(nonExistingBookingId));
@@ -103,7 +202,7 @@ class BookingServiceUnitTest {
     @Test
     void deleteBooking_Should_ThrowException_On_BookingWithHighestPossibleId() {
         long highestId = Long.MAX_VALUE;
-        Mockito.when(bookingRepository.existsById(highestId)).thenReturn(false);
+        Mockito.when(bookingRepository.findById(highestId)).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class,
                 () -> bookingService.deleteBooking(highestId));
@@ -112,7 +211,7 @@ class BookingServiceUnitTest {
     @Test
     void deleteBooking_Should_ThrowException_On_BookingWithLowestPossibleId() {
         long lowestId = Long.MIN_VALUE;
-        Mockito.when(bookingRepository.existsById(lowestId)).thenReturn(false);
+        Mockito.when(bookingRepository.findById(lowestId)).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class,
                 () -> bookingService.deleteBooking(lowestId));
@@ -122,27 +221,54 @@ class BookingServiceUnitTest {
     @Test
     void updateBooking_Should_ReturnUpdatedBooking_WithExistingBookingId() {
 
-        Mockito.when(bookingRepository.existsById(booking.getBookingId())).thenReturn(true);
+        Mockito.when(bookingRepository.findById(booking.getBookingId())).thenReturn(Optional.of(booking));
         Mockito.when(bookingRepository.save(booking)).thenReturn(booking);
 
-        Booking updatedBooking = bookingService.updateBooking(booking.getBookingId(), booking);
+        Booking updatedBooking = bookingService.updateBooking(booking.getBookingId(), booking, null);
 
         assertEquals(booking, updatedBooking);
+        // Same owner and still active, so the counter is untouched
+        verify(accountRepository, never()).adjustActiveBookings(anyLong(), anyInt());
+    }
+    @Test
+    void updateBooking_Should_DecrementCounter_When_BookingIsCancelled() {
+        Booking cancelled = Booking.builder()
+                .routeId(101)
+                .username("Valeria")
+                .status(BookingStatus.CANCELLED)
+                .build();
+        Mockito.when(bookingRepository.findById(1L)).thenReturn(Optional.of(booking));
+        Mockito.when(bookingRepository.save(cancelled)).thenReturn(cancelled);
+
+        bookingService.updateBooking(1L, cancelled, null);
+
+        verify(accountRepository).adjustActiveBookings(7L, -1);
+        verify(accountRepository, never()).adjustActiveBookings(7L, 1);
     }
 
     @Test
     void updateBooking_Should_ThrowException_WithNonExistentBookingId() {
-        Mockito.when(bookingRepository.existsById(booking.getBookingId())).thenReturn(false);
+        Mockito.when(bookingRepository.findById(booking.getBookingId())).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class,
-                () -> bookingService.updateBooking(booking.getBookingId(), booking));
+                () -> bookingService.updateBooking(booking.getBookingId(), booking, null));
+    }
+    @Test
+    void updateBooking_Should_ThrowPreconditionFailed_On_StaleVersion() {
+        booking.setVersion(2L);
+        Mockito.when(bookingRepository.findById(booking.getBookingId())).thenReturn(Optional.of(booking));
+
+        assertThrows(PreconditionFailedException.class,
+                () -> bookingService.updateBooking(booking.getBookingId(), booking, 1L));
+        verify(bookingRepository, never()).save(any(Booking.class));
+        verify(routeCapacityService, never()).reserve(anyInt());
     }
     @Test
     void updateBooking_Should_ThrowException_WithNullBookingId() {
         Long nullBookingId = null;
 
         assertThrows(IllegalArgumentException.class,
-                () -> bookingService.updateBooking(nullBookingId, booking));
+                () -> bookingService.updateBooking(nullBookingId, booking, null));
     }
 
     @Test
@@ -154,36 +280,65 @@ class BookingServiceUnitTest {
                 .username("John")
                 .build();
 
-        Mockito.when(bookingRepository.existsById(pathVariableBookingId)).thenReturn(true);
+        Account john = Account.builder().id(8L).username("John").build();
+        Mockito.when(bookingRepository.findById(pathVariableBookingId)).thenReturn(Optional.of(booking));
+        Mockito.when(accountRepository.findIdByUsername("John")).thenReturn(Optional.of(8L));
+        Mockito.when(accountRepository.getReferenceById(8L)).thenReturn(john);
         Mockito.when(bookingRepository.save(bookingWithDifferentId)).thenReturn(bookingWithDifferentId);
 
-        Booking updatedBooking = bookingService.updateBooking(pathVariableBookingId, bookingWithDifferentId);
+        Booking updatedBooking = bookingService.updateBooking(pathVariableBookingId, bookingWithDifferentId, null);
 
         assertEquals(bookingWithDifferentId, updatedBooking);
+        // The active booking moves from Valeria's counter to John's
+        verify(accountRepository).adjustActiveBookings(7L, -1);
+        verify(accountRepository).adjustActiveBookings(8L, 1);
     }
 
-    //METHOD: getAllBookings
+    //METHOD: patchBooking
+    @Test
+    void patchBooking_Should_KeepAbsentFields_And_ReleaseSeat_When_Cancelled() {
+        Mockito.when(bookingRepository.findById(1L)).thenReturn(Optional.of(booking));
+        Mockito.when(bookingRepository.save(any(Booking.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
+        Booking patched = bookingService.patchBooking(1L, new BookingPatch(null, null, BookingStatus.CANCELLED), null);
+
+        assertEquals(101, patched.getRouteId());
+        assertEquals("Valeria", patched.getUsername());
+        assertEquals(BookingStatus.CANCELLED, patched.getStatus());
+        verify(routeCapacityService).release(101);
+        verify(accountRepository).adjustActiveBookings(7L, -1);
+    }
     @Test
-    void getAllBookings_Should_ReturnEmptyList_WhenNoBookingsInRepository() {
-        Mockito.when(bookingRepository.findAll()).thenReturn(Collections.emptyList());
+    void patchBooking_Should_ThrowException_On_EmptyPatch() {
+        assertThrows(IllegalArgumentException.class,
+                () -> bookingService.patchBooking(1L, new BookingPatch(null, null, null), null));
+        verify(bookingRepository, never()).findById(anyLong());
+    }
+
+    //METHOD: getBookings
+
+    @Test
+    void getBookings_Should_ReturnEmptyList_WhenNoBookingsInRepository() {
+        Mockito.when(bookingRepository.findByBookingIdGreaterThanOrderByBookingIdAsc(eq(0L), any(Pageable.class)))
+                .thenReturn(Collections.emptyList());
 
-        List<Booking> result = bookingService.getAllBookings();
+        List<Booking> result = bookingService.getBookings(0L, 10);
 
         assertTrue(result.isEmpty());
     }
     @Test
-    void getAllBookings_Should_ReturnOneBooking_When_OnlyOneBookingIsInRepository() {
+    void getBookings_Should_ReturnOneBooking_When_OnlyOneBookingIsInRepository() {
         List<Booking> expectedList = Collections.singletonList(booking);
-        Mockito.when(bookingRepository.findAll()).thenReturn(expectedList);
+        Mockito.when(bookingRepository.findByBookingIdGreaterThanOrderByBookingIdAsc(eq(0L), any(Pageable.class)))
+                .thenReturn(expectedList);
 
-        List<Booking> result = bookingService.getAllBookings();
+        List<Booking> result = bookingService.getBookings(0L, 10);
 
         assertEquals(1, result.size());
         assertEquals(booking, result.get(0));
     }
     @Test
-    void getAllBookings_Should_ReturnAllBookings_On_MultipleBookingsInRepository() {
+    void getBookings_Should_ReturnAllBookings_On_MultipleBookingsInRepository() {
         Booking booking2 = Booking.builder()
                 .bookingId(2L)
                 .routeId(102)
@@ -197,13 +352,66 @@ class BookingServiceUnitTest {
                 .build();
 
         List<Booking> expectedList = Arrays.asList(booking, booking2, booking3);
-        Mockito.when(bookingRepository.findAll()).thenReturn(expectedList);
+        Mockito.when(bookingRepository.findByBookingIdGreaterThanOrderByBookingIdAsc(eq(0L), any(Pageable.class)))
+                .thenReturn(expectedList);
 
-        List<Booking> result = bookingService.getAllBookings();
+        List<Booking> result = bookingService.getBookings(0L, 10);
 
         assertEquals(3, result.size());
         assertTrue(result.containsAll(expectedList));
     }
+    @Test
+    void getBookings_Should_RequestPageOfGivenSize_AfterCursor() {
+        Mockito.when(bookingRepository.findByBookingIdGreaterThanOrderByBookingIdAsc(eq(1L), any(Pageable.class)))
+                .thenReturn(Collections.emptyList());
+
+        bookingService.getBookings(1L, 25);
+
+        Mockito.verify(bookingRepository).findByBookingIdGreaterThanOrderByBookingIdAsc(1L, PageRequest.ofSize(25));
+    }
+    @Test
+    void getBookings_Should_ThrowException_On_LimitOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> bookingService.getBookings(0L, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> bookingService.getBookings(0L, BookingService.MAX_PAGE_SIZE + 1));
+    }
+
+    //METHOD: getAccountBookings
+
+    @Test
+    void getAccountBookings_Should_RequestPageOfGivenSize_AfterCursor() {
+        Mockito.when(bookingRepository.findAccountPage(7L, 1L, PageRequest.ofSize(25)))
+                .thenReturn(Collections.singletonList(booking));
+
+        List<Booking> result = bookingService.getAccountBookings(7L, 1L, 25);
+
+        assertEquals(1, result.size());
+        verify(accountRepository, never()).existsById(anyLong());
+    }
+    @Test
+    void getAccountBookings_Should_ThrowException_When_AccountDoesNotExist() {
+        Mockito.when(bookingRepository.findAccountPage(eq(9L), eq(0L), any(Pageable.class)))
+                .thenReturn(Collections.emptyList());
+        Mockito.when(accountRepository.existsById(9L)).thenReturn(false);
+
+        assertThrows(ResourceNotFoundException.class, () -> bookingService.getAccountBookings(9L, 0L, 10));
+    }
+    @Test
+    void getAccountBookings_Should_ThrowException_On_LimitOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> bookingService.getAccountBookings(7L, 0L, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> bookingService.getAccountBookings(7L, 0L, BookingService.MAX_PAGE_SIZE + 1));
+    }
+
+    //METHOD: countAccountBookings
+
+    @Test
+    void countAccountBookings_Should_ReturnZero_When_AccountHasNoBookings() {
+        Mockito.when(bookingRepository.countByAccountId(7L)).thenReturn(0L);
+        Mockito.when(accountRepository.existsById(7L)).thenReturn(true);
+
+        assertEquals(0, bookingService.countAccountBookings(7L));
+    }
 
     //METHOD: getBookingById
 
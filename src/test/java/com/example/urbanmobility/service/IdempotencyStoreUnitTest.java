@@ -0,0 +1,138 @@
+package com.example.urbanmobility.service;
+
+import com.example.urbanmobility.exception.IdempotencyKeyReusedException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyStoreUnitTest {
+    private final IdempotencyStore idempotencyStore = new IdempotencyStore(Duration.ofMinutes(1), 100);
+
+    //METHOD: execute
+    @Test
+    void execute_Should_ReplayStoredResult_WithoutRunningActionAgain() {
+        AtomicInteger runs = new AtomicInteger();
+
+        String first = idempotencyStore.execute("booking", "key-1", "body-1", () -> "booking-" + runs.incrementAndGet());
+        String replay = idempotencyStore.execute("booking", "key-1", "body-1", () -> "booking-" + runs.incrementAndGet());
+
+        assertEquals("booking-1", first);
+        assertEquals("booking-1", replay);
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void execute_Should_RunEveryRequest_WithoutKey_OrAcrossScopes() {
+        AtomicInteger runs = new AtomicInteger();
+
+        idempotencyStore.execute("booking", null, "body-1", runs::incrementAndGet);
+        idempotencyStore.execute("booking", null, "body-1", runs::incrementAndGet);
+        idempotencyStore.execute("booking", "key-1", "body-1", runs::incrementAndGet);
+        idempotencyStore.execute("account", "key-1", "body-1", runs::incrementAndGet);
+
+        assertEquals(4, runs.get());
+    }
+
+    @Test
+    void execute_Should_RejectKeyReuse_WithDifferentRequest() {
+        idempotencyStore.execute("booking", "key-1", "body-1", () -> "booking-1");
+
+        assertThrows(IdempotencyKeyReusedException.class,
+                () -> idempotencyStore.execute("booking", "key-1", "body-2", () -> "booking-2"));
+    }
+
+    @Test
+    void execute_Should_ForgetFailedRequest_SoItCanBeRetried() {
+        assertThrows(IllegalStateException.class,
+                () -> idempotencyStore.execute("booking", "key-1", "body-1", () -> {
+                    throw new IllegalStateException("database down");
+                }));
+
+        assertEquals("booking-1", idempotencyStore.execute("booking", "key-1", "body-1", () -> "booking-1"));
+    }
+
+    @Test
+    void execute_Should_MatchRequests_ByContent_NotFieldOrder() {
+        Map<String, Object> first = new LinkedHashMap<>();
+        first.put("username", "testUser");
+        first.put("routeId", 1);
+        Map<String, Object> reordered = new LinkedHashMap<>();
+        reordered.put("routeId", 1);
+        reordered.put("username", "testUser");
+
+        idempotencyStore.execute("booking", "key-1", first, () -> "booking-1");
+
+        assertEquals("booking-1", idempotencyStore.execute("booking", "key-1", reordered, () -> "booking-2"));
+        assertThrows(IdempotencyKeyReusedException.class,
+                () -> idempotencyStore.execute("booking", "key-1", Map.of("username", "testUser", "routeId", 2), () -> "booking-3"));
+    }
+
+    @Test
+    void execute_Should_ReleaseWaitingDuplicates_AndForgetTheKey_WhenActionThrowsAnError() throws Exception {
+        CompletableFuture<Throwable> duplicateFailure = new CompletableFuture<>();
+        Thread duplicate = new Thread(() -> {
+            try {
+                idempotencyStore.execute("booking", "key-1", "body-1", () -> "booking-1");
+                duplicateFailure.complete(null);
+            } catch (Throwable e) {
+                duplicateFailure.complete(e);
+            }
+        });
+
+        assertThrows(StackOverflowError.class, () -> idempotencyStore.execute("booking", "key-1", "body-1", () -> {
+            duplicate.start();
+            // Fail only once the duplicate is parked on the first request's result
+            while (duplicate.getState() != Thread.State.WAITING) {
+                Thread.onSpinWait();
+            }
+            throw new StackOverflowError();
+        }));
+
+        assertNotNull(duplicateFailure.get(5, TimeUnit.SECONDS));
+        assertEquals("booking-1", idempotencyStore.execute("booking", "key-1", "body-1", () -> "booking-1"));
+    }
+
+    @Test
+    void execute_Should_CoalesceConcurrentDuplicates() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> first = executor.submit(() -> idempotencyStore.execute("booking", "key-1", "body-1", () -> {
+                started.countDown();
+                awaitQuietly(release);
+                return runs.incrementAndGet();
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            // The duplicate arrives while the first request is still running
+            Future<Integer> duplicate = executor.submit(() -> idempotencyStore.execute("booking", "key-1", "body-1", runs::incrementAndGet));
+            release.countDown();
+
+            assertEquals(1, first.get(5, TimeUnit.SECONDS));
+            assertEquals(1, duplicate.get(5, TimeUnit.SECONDS));
+            assertEquals(1, runs.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
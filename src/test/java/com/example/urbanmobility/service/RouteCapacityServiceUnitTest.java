@@ -0,0 +1,174 @@
+package com.example.urbanmobility.service;
+
+import com.example.urbanmobility.exception.RouteFullException;
+import com.example.urbanmobility.model.BookingStatus;
+import com.example.urbanmobility.model.Route;
+import com.example.urbanmobility.repository.BookingRepository;
+import com.example.urbanmobility.repository.RouteRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RouteCapacityServiceUnitTest {
+    @Mock
+    private RouteRepository routeRepository;
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    //Class we are testing
+    @InjectMocks
+    private RouteCapacityService routeCapacityService;
+
+    private void givenRoute(int routeId, int capacity, long activeBookings) {
+        when(routeRepository.findById(routeId)).thenReturn(Optional.of(Route.builder().routeId(routeId).capacity(capacity).build()));
+        when(bookingRepository.countByRouteIdAndStatus(routeId, BookingStatus.ACTIVE)).thenReturn(activeBookings);
+    }
+
+    //METHOD: reserve
+
+    @Test
+    void reserve_Should_AllowUnregisteredRoute_WithoutCountingIt() {
+        when(routeRepository.findById(7)).thenReturn(Optional.empty());
+
+        for (int i = 0; i < 100; i++) {
+            routeCapacityService.reserve(7);
+        }
+        routeCapacityService.flush();
+
+        verify(bookingRepository, never()).countByRouteIdAndStatus(anyInt(), any());
+        verify(routeRepository, never()).updateReserved(anyInt(), anyInt());
+    }
+
+    @Test
+    void reserve_Should_NotLookUp_NonPositiveRouteIds() {
+        routeCapacityService.reserve(-5);
+        routeCapacityService.release(0);
+
+        verifyNoInteractions(routeRepository, bookingRepository);
+    }
+
+    @Test
+    void reserve_Should_LookUpAConfiguredRouteOnce() {
+        givenRoute(1, 100, 0);
+
+        for (int i = 0; i < 10; i++) {
+            routeCapacityService.reserve(1);
+        }
+
+        verify(routeRepository, times(1)).findById(1);
+        verify(bookingRepository, times(1)).countByRouteIdAndStatus(1, BookingStatus.ACTIVE);
+    }
+
+    @Test
+    void reserve_Should_ThrowRouteFull_When_CapacityIsReached() {
+        givenRoute(1, 3, 1);
+
+        routeCapacityService.reserve(1);
+        routeCapacityService.reserve(1);
+
+        assertThrows(RouteFullException.class, () -> routeCapacityService.reserve(1));
+    }
+
+    @Test
+    void reserve_Should_NeverOverbook_UnderContention() throws Exception {
+        givenRoute(1, 50, 0);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        List<Callable<Integer>> attempts = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            attempts.add(() -> {
+                int reserved = 0;
+                for (int j = 0; j < 20; j++) {
+                    try {
+                        routeCapacityService.reserve(1);
+                        reserved++;
+                    } catch (RouteFullException e) {
+                        // Expected once the route is full
+                    }
+                }
+                return reserved;
+            });
+        }
+
+        int total = 0;
+        for (Future<Integer> result : executor.invokeAll(attempts)) {
+            total += result.get();
+        }
+        executor.shutdown();
+
+        assertEquals(50, total);
+    }
+
+    //METHOD: release
+
+    @Test
+    void release_Should_FreeSeat_ForNextReservation() {
+        givenRoute(1, 1, 1);
+        assertThrows(RouteFullException.class, () -> routeCapacityService.reserve(1));
+
+        routeCapacityService.release(1);
+
+        assertDoesNotThrow(() -> routeCapacityService.reserve(1));
+    }
+
+    //METHOD: flush
+
+    @Test
+    void flush_Should_WriteChangedCountsOnce() {
+        givenRoute(1, 10, 4);
+        routeCapacityService.reserve(1);
+
+        routeCapacityService.flush();
+        routeCapacityService.flush();
+
+        verify(routeRepository, times(1)).updateReserved(1, 5);
+    }
+
+    @Test
+    void flush_Should_SkipUnchangedRoutes() {
+        when(routeRepository.findById(7)).thenReturn(Optional.empty());
+        routeCapacityService.reserve(7);
+
+        routeCapacityService.flush();
+
+        verify(routeRepository, never()).updateReserved(anyInt(), anyInt());
+    }
+
+    //METHOD: saveRoute
+
+    @Test
+    void saveRoute_Should_KeepReservedSeats_When_CapacityChanges() {
+        givenRoute(1, 2, 2);
+        assertThrows(RouteFullException.class, () -> routeCapacityService.reserve(1));
+        when(routeRepository.save(any(Route.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Route saved = routeCapacityService.saveRoute(Route.builder().routeId(1).capacity(3).build());
+
+        assertEquals(2, saved.getReserved());
+        assertDoesNotThrow(() -> routeCapacityService.reserve(1));
+        assertThrows(RouteFullException.class, () -> routeCapacityService.reserve(1));
+    }
+
+    @Test
+    void saveRoute_Should_ThrowException_On_NegativeCapacity() {
+        assertThrows(IllegalArgumentException.class,
+                () -> routeCapacityService.saveRoute(Route.builder().routeId(1).capacity(-1).build()));
+        verify(routeRepository, never()).save(any());
+    }
+}
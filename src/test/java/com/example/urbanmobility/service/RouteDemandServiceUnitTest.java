@@ -0,0 +1,186 @@
+package com.example.urbanmobility.service;
+
+import com.example.urbanmobility.dto.RouteCount;
+import com.example.urbanmobility.dto.RouteStats;
+import com.example.urbanmobility.model.BookingStatus;
+import com.example.urbanmobility.repository.BookingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RouteDemandServiceUnitTest {
+    @Mock
+    private BookingRepository bookingRepository;
+
+    private final AtomicLong now = new AtomicLong(1_700_000_000_000L);
+
+    //Class we are testing
+    private RouteDemandService routeDemandService;
+
+    @BeforeEach
+    public void setup() {
+        routeDemandService = new RouteDemandService(bookingRepository, Optional.empty(), Duration.ofSeconds(60), now::get);
+    }
+
+    //METHOD: load
+
+    @Test
+    void load_Should_StartActiveCounts_FromTheBookingTable() {
+        when(bookingRepository.countByRoute(BookingStatus.ACTIVE))
+                .thenReturn(List.of(new RouteCount(3, 12), new RouteCount(8, 2)));
+
+        routeDemandService.load();
+
+        assertEquals(new RouteStats(3, 12, 0, 0), routeDemandService.getStats(3));
+        assertEquals(2, routeDemandService.getStats(8).activeBookings());
+    }
+
+    private RouteDemandService withJournal(BookingJournal bookingJournal) {
+        when(bookingJournal.coversAllBookings()).thenReturn(true);
+        when(bookingJournal.replay(any())).thenAnswer(invocation -> {
+            BookingJournal.Visitor visitor = invocation.getArgument(0);
+            visitor.accept(1, 3, 0, BookingJournal.Op.CREATED, 1);
+            visitor.accept(2, 3, 0, BookingJournal.Op.CREATED, 2);
+            visitor.accept(3, 8, 0, BookingJournal.Op.CREATED, 3);
+            visitor.accept(2, 3, 0, BookingJournal.Op.DEACTIVATED, 4);
+            visitor.accept(2, 3, 0, BookingJournal.Op.DELETED, 5);
+            return 5L;
+        });
+        return new RouteDemandService(bookingRepository, Optional.of(bookingJournal), Duration.ofSeconds(60), now::get);
+    }
+
+    @Test
+    void load_Should_ReplayTheJournal_When_ItMatchesTheTable() {
+        BookingJournal bookingJournal = mock(BookingJournal.class);
+        RouteDemandService fromJournal = withJournal(bookingJournal);
+        when(bookingRepository.count()).thenReturn(2L);
+        when(bookingRepository.countByStatus(BookingStatus.ACTIVE)).thenReturn(2L);
+
+        fromJournal.load();
+
+        assertEquals(1, fromJournal.getStats(3).activeBookings());
+        assertEquals(1, fromJournal.getStats(8).activeBookings());
+        verify(bookingRepository, never()).countByRoute(any());
+        verify(bookingJournal, never()).markIncomplete(anyString());
+    }
+
+    @Test
+    void load_Should_FallBackToTheTable_When_TheJournalDisagrees() {
+        BookingJournal bookingJournal = mock(BookingJournal.class);
+        RouteDemandService fromJournal = withJournal(bookingJournal);
+        // Bookings were made while the journal was switched off
+        when(bookingRepository.count()).thenReturn(5L);
+        when(bookingRepository.countByStatus(BookingStatus.ACTIVE)).thenReturn(4L);
+        when(bookingRepository.countByRoute(BookingStatus.ACTIVE)).thenReturn(List.of(new RouteCount(3, 4)));
+
+        fromJournal.load();
+
+        assertEquals(4, fromJournal.getStats(3).activeBookings());
+        assertEquals(List.of(3), fromJournal.getStats().stream().map(RouteStats::routeId).toList());
+        verify(bookingJournal).markIncomplete(anyString());
+    }
+
+    //METHOD: booked
+
+    @Test
+    void booked_Should_DropOutOfTheWindow_AfterItHasPassed() {
+        routeDemandService.booked(5);
+        now.addAndGet(30_000);
+        routeDemandService.booked(5);
+
+        assertEquals(new RouteStats(5, 2, 2, 2.0), routeDemandService.getStats(5));
+
+        now.addAndGet(31_000);
+        assertEquals(new RouteStats(5, 2, 1, 1.0), routeDemandService.getStats(5));
+
+        now.addAndGet(60_000);
+        assertEquals(0, routeDemandService.getStats(5).recentBookings());
+    }
+
+    @Test
+    void booked_Should_KeepEveryRoute_When_TheTableGrows() {
+        for (int routeId = 1; routeId <= 1000; routeId++) {
+            for (int i = 0; i <= routeId % 5; i++) {
+                routeDemandService.booked(routeId);
+            }
+        }
+
+        List<RouteStats> stats = routeDemandService.getStats();
+        assertEquals(1000, stats.size());
+        for (RouteStats route : stats) {
+            assertEquals(route.routeId() % 5 + 1, route.activeBookings());
+            assertEquals(route.routeId() % 5 + 1, route.recentBookings());
+        }
+    }
+
+    //METHOD: released
+
+    @Test
+    void released_Should_NotCountBelowZero() {
+        routeDemandService.booked(5);
+        routeDemandService.released(5);
+        routeDemandService.released(5);
+
+        assertEquals(new RouteStats(5, 0, 1, 1.0), routeDemandService.getStats(5));
+    }
+
+    //METHOD: getStats
+
+    @Test
+    void getStats_Should_ReturnZeros_ForAnUnknownRoute() {
+        assertEquals(new RouteStats(42, 0, 0, 0), routeDemandService.getStats(42));
+        assertTrue(routeDemandService.getStats().isEmpty());
+    }
+
+    //METHOD: getTopK
+
+    @Test
+    void getTopK_Should_ReturnHighestScores_WithTiesByRouteId() {
+        for (int routeId = 1; routeId <= 200; routeId++) {
+            for (int i = 0; i < routeId % 10; i++) {
+                routeDemandService.booked(routeId);
+            }
+        }
+        routeDemandService.released(199);
+
+        List<RouteStats> byRecent = routeDemandService.getTopK(3, RouteDemandService.Ranking.RECENT);
+        assertEquals(List.of(9, 19, 29), byRecent.stream().map(RouteStats::routeId).toList());
+
+        List<RouteStats> byActive = routeDemandService.getTopK(25, RouteDemandService.Ranking.ACTIVE);
+        assertEquals(25, byActive.size());
+        assertEquals(9, byActive.get(0).routeId());
+        // Route 199 dropped to 8 active bookings, behind the nineteen other routes holding 9
+        assertEquals(8, byActive.get(19).routeId());
+        assertFalse(byActive.stream().anyMatch(route -> route.routeId() == 199));
+    }
+
+    @Test
+    void getTopK_Should_LeaveOutRoutesWithoutDemand() {
+        routeDemandService.booked(4);
+        routeDemandService.released(4);
+
+        assertTrue(routeDemandService.getTopK(5, RouteDemandService.Ranking.ACTIVE).isEmpty());
+        assertEquals(1, routeDemandService.getTopK(5, RouteDemandService.Ranking.RECENT).size());
+    }
+
+    @Test
+    void getTopK_Should_ThrowException_On_KOutOfRange() {
+        assertThrows(IllegalArgumentException.class,
+                () -> routeDemandService.getTopK(0, RouteDemandService.Ranking.RECENT));
+        assertThrows(IllegalArgumentException.class,
+                () -> routeDemandService.getTopK(RouteDemandService.MAX_TOP_K + 1, RouteDemandService.Ranking.RECENT));
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.urbanmobility.validation;
+
+import com.example.urbanmobility.dto.AccountPatch;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountFieldMaskUnitTest {
+
+    //METHOD: supplied
+    @Test
+    void supplied_Should_SetOneBitPerPresentMember() {
+        AccountPatch patch = new AccountPatch(null, "Admin", null, null, 0, false);
+
+        int mask = AccountFieldMask.supplied(patch);
+
+        assertEquals(AccountFieldMask.ROLE | AccountFieldMask.PAYMENT_HISTORY | AccountFieldMask.PAYMENT_SET, mask);
+        assertEquals(0, AccountFieldMask.supplied(new AccountPatch()));
+    }
+
+    //METHOD: blank
+    @Test
+    void blank_Should_FlagEmptyText_EvenWhenUsernameIsEmpty() {
+        // The old boolean chain stopped at an empty username and never looked at the other fields
+        AccountPatch patch = new AccountPatch("", " ", "0722946563", "", 4, true);
+
+        int blank = AccountFieldMask.blank(patch, AccountFieldMask.supplied(patch));
+
+        assertEquals(AccountFieldMask.USERNAME | AccountFieldMask.ROLE | AccountFieldMask.PAYMENT_INFO, blank);
+        assertEquals("username, role, paymentInfo", AccountFieldMask.names(blank));
+    }
+
+    @Test
+    void blank_Should_IgnoreMembersThatWereNotSupplied() {
+        AccountPatch patch = new AccountPatch(null, null, "0722946563", null, null, null);
+
+        assertEquals(0, AccountFieldMask.blank(patch, AccountFieldMask.supplied(patch)));
+    }
+}
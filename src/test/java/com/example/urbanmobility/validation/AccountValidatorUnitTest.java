@@ -0,0 +1,60 @@
+package com.example.urbanmobility.validation;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountValidatorUnitTest {
+    private final AccountValidator accountValidator = new AccountValidator();
+
+    //METHOD: isValidPhoneNumber
+    @Test
+    void isValidPhoneNumber_Should_AcceptTenDigits() {
+        assertTrue(accountValidator.isValidPhoneNumber("0722946563"));
+    }
+
+    @Test
+    void isValidPhoneNumber_Should_RejectWrongLengthOrNonDigits() {
+        assertFalse(accountValidator.isValidPhoneNumber(null));
+        assertFalse(accountValidator.isValidPhoneNumber(""));
+        assertFalse(accountValidator.isValidPhoneNumber("123456789"));
+        assertFalse(accountValidator.isValidPhoneNumber("12345678901"));
+        assertFalse(accountValidator.isValidPhoneNumber("07229465a3"));
+        assertFalse(accountValidator.isValidPhoneNumber("0722 46563"));
+        // Non-ASCII digits were rejected by the [0-9] regex as well
+        assertFalse(accountValidator.isValidPhoneNumber("072294656٣"));
+    }
+
+    //METHOD: isValidCardNumber
+    @Test
+    void isValidCardNumber_Should_AcceptSixteenDigits_WithOrWithoutSpaces() {
+        assertTrue(accountValidator.isValidCardNumber("3334 5566 3432 9090"));
+        assertTrue(accountValidator.isValidCardNumber("3334556634329090"));
+        assertTrue(accountValidator.isValidCardNumber(" 3334556634 329090 "));
+    }
+
+    @Test
+    void isValidCardNumber_Should_RejectWrongDigitCountOrSymbols() {
+        assertFalse(accountValidator.isValidCardNumber(null));
+        assertFalse(accountValidator.isValidCardNumber(""));
+        assertFalse(accountValidator.isValidCardNumber("    "));
+        assertFalse(accountValidator.isValidCardNumber("3477 8567 3477 7"));
+        assertFalse(accountValidator.isValidCardNumber("3477 8567 3477 78751"));
+        assertFalse(accountValidator.isValidCardNumber("3477 8567 3477 7875p."));
+        assertFalse(accountValidator.isValidCardNumber("3477-8567-3477-7875"));
+    }
+
+    //METHOD: hasValidCardChecksum
+    @Test
+    void hasValidCardChecksum_Should_AcceptLuhnValidNumbers() {
+        assertTrue(accountValidator.hasValidCardChecksum("3334 5566 3432 9090"));
+        assertTrue(accountValidator.hasValidCardChecksum("4111 1111 1111 1111"));
+        assertTrue(accountValidator.hasValidCardChecksum("5555555555554444"));
+    }
+
+    @Test
+    void hasValidCardChecksum_Should_RejectLuhnInvalidNumbers() {
+        assertFalse(accountValidator.hasValidCardChecksum("3334 5566 3432 9091"));
+        assertFalse(accountValidator.hasValidCardChecksum("1234 5678 9012 3456"));
+    }
+}